@@ -0,0 +1,223 @@
+package com.skyapi.weatherforecast.accesslog;
+
+import com.skyapi.weatherforecast.common.Location;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Access log for the geolocation path. Request threads claim a preallocated slot of a bounded ring buffer
+ * with a single CAS and only store references into it; a background writer drains the slots and does the
+ * formatting and logging. When the buffer is full the configured {@link AccessLogProperties.OverflowPolicy}
+ * applies.
+ */
+@Component
+public class AccessLog {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AccessLog.class);
+
+    private enum Kind {
+        CLIENT_ADDRESS, GEOLOCATION
+    }
+
+    private static final class Slot {
+
+        // equals the claiming position + 1 once the slot is published, position + capacity once it is free again
+        private volatile long sequence;
+
+        private long timestamp;
+        private Kind kind;
+        private String ipAddress;
+        private Location location;
+    }
+
+    private final boolean enabled;
+    private final AccessLogProperties.OverflowPolicy overflowPolicy;
+    private final long drainIntervalNanos;
+
+    private final Slot[] slots;
+    private final int mask;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    // only touched by the writer thread
+    private long head;
+
+    private final LongAdder offered = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder writtenSynchronously = new LongAdder();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public AccessLog(AccessLogProperties properties) {
+        this.enabled = properties.isEnabled();
+        this.overflowPolicy = properties.getOverflowPolicy();
+        this.drainIntervalNanos = Math.max(1, properties.getDrainInterval().toNanos());
+
+        int capacity = properties.getCapacity() <= 2 ? 2 : Integer.highestOneBit(properties.getCapacity() - 1) << 1;
+
+        this.slots = new Slot[capacity];
+        this.mask = capacity - 1;
+
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+            slots[i].sequence = i;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+
+        running = true;
+
+        writer = new Thread(this::drainLoop, "access-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join();
+    }
+
+    public void clientAddress(String ipAddress) {
+        offer(Kind.CLIENT_ADDRESS, ipAddress, null);
+    }
+
+    /**
+     * Records an address resolved to a location, whether it came from a cache, the index or the engine.
+     */
+    public void geolocation(String ipAddress, Location location) {
+        offer(Kind.GEOLOCATION, ipAddress, location);
+    }
+
+    public AccessLogStats stats() {
+        return AccessLogStats.builder()
+                .enabled(enabled)
+                .capacity(slots.length)
+                .pending((int) Math.max(0, tail.get() - head))
+                .overflowPolicy(overflowPolicy.name())
+                .offered(offered.sum())
+                .written(written.sum())
+                .dropped(dropped.sum())
+                .writtenSynchronously(writtenSynchronously.sum())
+                .build();
+    }
+
+    /**
+     * Writes everything buffered so far. Only for use while the writer thread is not running.
+     */
+    public int drain() {
+        if (running) {
+            throw new IllegalStateException("Access log writer is running");
+        }
+
+        return drainAvailable();
+    }
+
+    private void offer(Kind kind, String ipAddress, Location location) {
+        if (!enabled) {
+            return;
+        }
+
+        offered.increment();
+
+        long position = tail.get();
+        Slot slot;
+
+        while (true) {
+            slot = slots[(int) position & mask];
+            long difference = slot.sequence - position;
+
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                overflow(kind, ipAddress, location);
+                return;
+            } else {
+                position = tail.get();
+            }
+        }
+
+        slot.timestamp = System.currentTimeMillis();
+        slot.kind = kind;
+        slot.ipAddress = ipAddress;
+        slot.location = location;
+
+        slot.sequence = position + 1;
+    }
+
+    private void overflow(Kind kind, String ipAddress, Location location) {
+        if (overflowPolicy == AccessLogProperties.OverflowPolicy.LOG_SYNCHRONOUSLY) {
+            write(System.currentTimeMillis(), kind, ipAddress, location);
+            writtenSynchronously.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    private void drainLoop() {
+        while (running) {
+            if (drainAvailable() == 0) {
+                LockSupport.parkNanos(this, drainIntervalNanos);
+            }
+        }
+
+        drainAvailable();
+    }
+
+    private int drainAvailable() {
+        int count = 0;
+
+        while (true) {
+            Slot slot = slots[(int) head & mask];
+
+            if (slot.sequence != head + 1) {
+                return count;
+            }
+
+            try {
+                write(slot.timestamp, slot.kind, slot.ipAddress, slot.location);
+                written.increment();
+            } catch (RuntimeException ex) {
+                dropped.increment();
+            }
+
+            slot.ipAddress = null;
+            slot.location = null;
+            slot.sequence = head + slots.length;
+
+            head++;
+            count++;
+        }
+    }
+
+    private void write(long timestamp, Kind kind, String ipAddress, Location location) {
+        if (kind == Kind.CLIENT_ADDRESS) {
+            LOGGER.info("{} client ip={}", timestamp, ipAddress);
+        } else {
+            LOGGER.info("{} geolocation ip={} country={} region={} city={}", timestamp, ipAddress,
+                    location.getCountryCode(), location.getRegionName(), location.getCityName());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.skyapi.weatherforecast.accesslog;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "access-log")
+@Data
+public class AccessLogProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Number of events buffered between request threads and the writer; rounded up to a power of two.
+     */
+    private int capacity = 8192;
+
+    /**
+     * What to do with an event when the buffer is full.
+     */
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+    /**
+     * How long the writer sleeps when the buffer is empty.
+     */
+    private Duration drainInterval = Duration.ofMillis(10);
+
+    public enum OverflowPolicy {
+        /**
+         * Discard the event and count it as dropped.
+         */
+        DROP,
+
+        /**
+         * Write the event on the request thread, as before the buffer existed.
+         */
+        LOG_SYNCHRONOUSLY
+    }
+}
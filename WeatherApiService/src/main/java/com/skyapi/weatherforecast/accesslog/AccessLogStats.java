@@ -0,0 +1,32 @@
+package com.skyapi.weatherforecast.accesslog;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccessLogStats {
+
+    private boolean enabled;
+
+    private int capacity;
+
+    private int pending;
+
+    @JsonProperty("overflow_policy")
+    private String overflowPolicy;
+
+    private long offered;
+
+    private long written;
+
+    private long dropped;
+
+    @JsonProperty("written_synchronously")
+    private long writtenSynchronously;
+}
@@ -0,0 +1,26 @@
+package com.skyapi.weatherforecast.cache;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStats {
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private int size;
+
+    @JsonProperty("max_size")
+    private int maxSize;
+
+    @JsonProperty("hit_ratio")
+    public double getHitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+}
@@ -0,0 +1,185 @@
+package com.skyapi.weatherforecast.cache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Bounded, concurrent in-process cache with time-to-live expiry.
+ * <p>
+ * Reads are lock-free. When the cache grows past its maximum size, entries are evicted
+ * in insertion order, giving recently read entries a second chance (CLOCK approximation of LRU).
+ * Null values are never stored.
+ */
+public class ExpiringCache<K, V> {
+
+    private final Map<K, Entry<K, V>> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry<K, V>> evictionQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final int maxSize;
+    private final long ttlNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ExpiringCache(int maxSize, Duration ttl) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache max size must be positive");
+        }
+
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl == null || ttl.isZero() || ttl.isNegative() ? 0 : ttl.toNanos();
+    }
+
+    public V get(K key) {
+        Entry<K, V> entry = entries.get(key);
+
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+
+        if (entry.isExpired(System.nanoTime())) {
+            if (entries.remove(key, entry)) {
+                evictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+
+        entry.referenced = true;
+        hits.increment();
+
+        return entry.value;
+    }
+
+    public V getOrLoad(K key, Function<K, V> loader) {
+        V value = get(key);
+
+        if (value == null) {
+            value = loader.apply(key);
+            put(key, value);
+        }
+
+        return value;
+    }
+
+    public void put(K key, V value) {
+        if (value == null) {
+            return;
+        }
+
+        Entry<K, V> entry = new Entry<>(key, value, ttlNanos == 0 ? 0 : System.nanoTime() + ttlNanos);
+        entries.put(key, entry);
+
+        evictionQueue.add(entry);
+        queued.incrementAndGet();
+
+        evictIfNecessary();
+    }
+
+    /**
+     * Caches the value unless the key has an entry that has not expired.
+     *
+     * @return the value cached for the key afterwards
+     */
+    public V putIfAbsent(K key, V value) {
+        if (value == null) {
+            return null;
+        }
+
+        long now = System.nanoTime();
+        Entry<K, V> entry = new Entry<>(key, value, ttlNanos == 0 ? 0 : now + ttlNanos);
+        Entry<K, V> current = entries.compute(key,
+                (k, existing) -> existing == null || existing.isExpired(now) ? entry : existing);
+
+        if (current != entry) {
+            return current.value;
+        }
+
+        evictionQueue.add(entry);
+        queued.incrementAndGet();
+
+        evictIfNecessary();
+
+        return value;
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public void invalidateIf(Predicate<K> predicate) {
+        entries.keySet().removeIf(predicate);
+    }
+
+    public void invalidateValuesIf(Predicate<V> predicate) {
+        entries.values().removeIf(entry -> predicate.test(entry.value));
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), entries.size(), maxSize);
+    }
+
+    private void evictIfNecessary() {
+        while (queued.get() > maxSize) {
+            Entry<K, V> head = evictionQueue.poll();
+
+            if (head == null) {
+                return;
+            }
+
+            queued.decrementAndGet();
+
+            // entries replaced or invalidated since they were queued are simply dropped
+            if (entries.get(head.key) != head) {
+                continue;
+            }
+
+            if (head.referenced && !head.isExpired(System.nanoTime())) {
+                head.referenced = false;
+                evictionQueue.add(head);
+                queued.incrementAndGet();
+                continue;
+            }
+
+            if (entries.remove(head.key, head)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    private static final class Entry<K, V> {
+
+        private final K key;
+        private final V value;
+        private final long expiresAt;
+
+        private volatile boolean referenced;
+
+        private Entry(K key, V value, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return expiresAt != 0 && now - expiresAt >= 0;
+        }
+    }
+}
@@ -10,4 +10,15 @@ public class GeolocationException extends RuntimeException {
         super(message);
     }
 
+    private GeolocationException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
+
+    /**
+     * @return a copy that skips capturing the stack trace, cheap enough to be cached and rethrown
+     */
+    public GeolocationException withoutStackTrace() {
+        return new GeolocationException(getMessage(), false);
+    }
+
 }
@@ -9,4 +9,15 @@ public class LocationNotFoundException extends RuntimeException {
     public LocationNotFoundException(String countryCode, String cityName) {
         super("No location found with the given country code: " + countryCode + " and city name: " + cityName);
     }
+
+    private LocationNotFoundException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
+
+    /**
+     * @return a copy that skips capturing the stack trace, cheap enough to be cached and rethrown
+     */
+    public LocationNotFoundException withoutStackTrace() {
+        return new LocationNotFoundException(getMessage(), false);
+    }
 }
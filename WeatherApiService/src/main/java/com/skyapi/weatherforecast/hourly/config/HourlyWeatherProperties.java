@@ -0,0 +1,70 @@
+package com.skyapi.weatherforecast.hourly.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "hourly")
+@Data
+public class HourlyWeatherProperties {
+
+    private Store store = new Store();
+
+    private Cache cache = new Cache();
+
+    private Bulk bulk = new Bulk();
+
+    /**
+     * Forecasts kept in memory, one record per location.
+     */
+    @Data
+    public static class Store {
+
+        /**
+         * How long a forecast loaded from the database is served before it is loaded again; updates through
+         * the API drop it immediately.
+         */
+        private Duration ttl = Duration.ofMinutes(30);
+    }
+
+    /**
+     * Serialized forecast responses, up to 25 per location: one per current hour.
+     */
+    @Data
+    public static class Cache {
+
+        private boolean enabled = true;
+
+        /**
+         * Locations whose responses are kept; the least recently used location is evicted first.
+         */
+        private int maxSize = 5_000;
+
+        /**
+         * Upper bound on how long responses are served; updates through the API drop them immediately.
+         */
+        private Duration ttl = Duration.ofHours(1);
+    }
+
+    @Data
+    public static class Bulk {
+
+        /**
+         * Upper bound on the locations accepted by one JSON bulk request; larger feeds are streamed as NDJSON.
+         */
+        private int maxLocations = 10_000;
+
+        /**
+         * Locations resolved with one query and written in one transaction.
+         */
+        private int chunkSize = 500;
+
+        /**
+         * Line errors listed in the result of a streaming ingest; further errors are only counted.
+         */
+        private int maxReportedErrors = 1_000;
+    }
+}
@@ -1,23 +1,33 @@
 package com.skyapi.weatherforecast.hourly.controller;
 
+import com.skyapi.weatherforecast.accesslog.AccessLog;
 import com.skyapi.weatherforecast.common.HourlyWeather;
-import com.skyapi.weatherforecast.common.Location;
 import com.skyapi.weatherforecast.exception.BadRequestException;
 import com.skyapi.weatherforecast.exception.GeolocationException;
 import com.skyapi.weatherforecast.exception.LocationNotFoundException;
+import com.skyapi.weatherforecast.hourly.dto.HourlyForecastBulkItemDTO;
+import com.skyapi.weatherforecast.hourly.dto.HourlyForecastBulkResultDTO;
+import com.skyapi.weatherforecast.hourly.dto.HourlyForecastIngestResultDTO;
 import com.skyapi.weatherforecast.hourly.dto.HourlyWeatherDTO;
-import com.skyapi.weatherforecast.hourly.dto.HourlyWeatherListDTO;
 import com.skyapi.weatherforecast.location.service.GeolocationService;
+import com.skyapi.weatherforecast.hourly.service.HourlyForecastBulkService;
+import com.skyapi.weatherforecast.hourly.service.HourlyForecastResponseCache;
+import com.skyapi.weatherforecast.hourly.service.HourlyForecastUpdate;
 import com.skyapi.weatherforecast.hourly.service.HourlyWeatherService;
 import com.skyapi.weatherforecast.location.utils.CommonUtility;
+import com.skyapi.weatherforecast.location.utils.JsonStreamReader;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -28,27 +38,42 @@ import java.util.List;
 public class HourlyWeatherApiController {
 
     private final HourlyWeatherService hourlyWeatherService;
+    private final HourlyForecastBulkService hourlyForecastBulkService;
+    private final HourlyForecastResponseCache hourlyForecastResponseCache;
     private final GeolocationService locationService;
 
     private final ModelMapper modelMapper;
 
+    private final AccessLog accessLog;
+
     @GetMapping
-    public ResponseEntity<?> listHourlyForecastByIPAddress(HttpServletRequest request) {
+    public ResponseEntity<?> listHourlyForecastByIPAddress(HttpServletRequest request, WebRequest webRequest) {
         String ipAddress = CommonUtility.getIPAddress(request);
+        accessLog.clientAddress(ipAddress);
 
         try {
 
             int currentHour = Integer.parseInt(request.getHeader("X-Current-Hour"));
 
-            Location locationFromIP = locationService.getLocation(ipAddress);
+            String locationCode = locationService.getLocationCode(ipAddress);
+
+            String eTag = hourlyWeatherService.getETag(locationCode, currentHour);
 
-            List<HourlyWeather> hourlyForecast = hourlyWeatherService.getByLocation(locationFromIP, currentHour);
+            if (eTag != null && webRequest.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
 
-            if (hourlyForecast.isEmpty()) {
+            byte[] json = hourlyWeatherService.getJsonByLocationCode(locationCode, currentHour);
+
+            if (json == null) {
                 return ResponseEntity.noContent().build();
             }
 
-            return ResponseEntity.ok(listEntity2DTO(hourlyForecast));
+            return ResponseEntity.ok()
+                    .eTag(eTag)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .contentLength(json.length)
+                    .body(json);
 
         } catch (NumberFormatException ex) {
 
@@ -57,35 +82,30 @@ public class HourlyWeatherApiController {
 
     }
 
-    private HourlyWeatherListDTO listEntity2DTO(List<HourlyWeather> hourlyForecast) {
-        Location location = hourlyForecast.get(0).getId().getLocation();
-
-        HourlyWeatherListDTO listDTO = new HourlyWeatherListDTO();
-        listDTO.setLocation(location.toString());
-
-        hourlyForecast.forEach(hourlyWeather -> {
-            HourlyWeatherDTO dto = modelMapper.map(hourlyWeather, HourlyWeatherDTO.class);
-            listDTO.addWeatherHourlyDTO(dto);
-        });
-
-        return listDTO;
-
-    }
-
     @GetMapping("/{locationCode}")
     public ResponseEntity<?> listHourlyForecastByLocationCode(
-            @PathVariable("locationCode") String locationCode, HttpServletRequest request) {
+            @PathVariable("locationCode") String locationCode, HttpServletRequest request, WebRequest webRequest) {
 
         try {
             int currentHour = Integer.parseInt(request.getHeader("X-Current-Hour"));
 
-            List<HourlyWeather> hourlyForecast = hourlyWeatherService.getByLocationCode(locationCode, currentHour);
+            String eTag = hourlyWeatherService.getETag(locationCode, currentHour);
+
+            if (eTag != null && webRequest.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
 
-            if (hourlyForecast.isEmpty()) {
+            byte[] json = hourlyWeatherService.getJsonByLocationCode(locationCode, currentHour);
+
+            if (json == null) {
                 return ResponseEntity.noContent().build();
             }
 
-            return ResponseEntity.ok(listEntity2DTO(hourlyForecast));
+            return ResponseEntity.ok()
+                    .eTag(eTag)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .contentLength(json.length)
+                    .body(json);
 
         } catch (NumberFormatException ex) {
 
@@ -103,17 +123,38 @@ public class HourlyWeatherApiController {
             throw new BadRequestException("Hourly forecast data cannot be empty");
         }
 
-        listDTO.forEach(System.out::println);
-
         List<HourlyWeather> listHourlyWeather = listDTO2ListEntity(listDTO);
 
-        System.out.println();
+        HourlyForecastUpdate update = hourlyWeatherService.updateByLocationCode(locationCode, listHourlyWeather);
 
-        listHourlyWeather.forEach(System.out::println);
+        byte[] json = hourlyForecastResponseCache.serialize(update.hourlyForecast(), update.changes());
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(json.length)
+                .body(json);
+    }
+
+    /**
+     * Replaces the forecasts of many locations. Every location gets its own result, so one
+     * invalid item or unknown location does not reject the others.
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<HourlyForecastBulkResultDTO> bulkUpdateHourlyForecast(
+            @RequestBody List<HourlyForecastBulkItemDTO> items) throws BadRequestException {
+
+        return ResponseEntity.ok(hourlyForecastBulkService.update(items));
+    }
 
-        List<HourlyWeather> updateHourlyWeather = hourlyWeatherService.updateByLocationCode(locationCode, listHourlyWeather);
+    /**
+     * Streams an NDJSON feed with one location's forecast per line into the database without holding
+     * the body in memory. Errors are reported by line number.
+     */
+    @PostMapping(value = "/bulk", consumes = JsonStreamReader.APPLICATION_NDJSON)
+    public ResponseEntity<HourlyForecastIngestResultDTO> ingestHourlyForecast(HttpServletRequest request)
+            throws IOException {
 
-        return ResponseEntity.ok(listEntity2DTO(updateHourlyWeather));
+        return ResponseEntity.ok(hourlyForecastBulkService.ingest(request.getInputStream()));
     }
 
     private List<HourlyWeather> listDTO2ListEntity(List<HourlyWeatherDTO> listDTO) {
@@ -0,0 +1,28 @@
+package com.skyapi.weatherforecast.hourly.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HourlyForecastBulkItemDTO {
+
+    @JsonProperty("location_code")
+    @NotBlank(message = "Location code must not be empty")
+    private String locationCode;
+
+    @JsonProperty("hourly_forecast")
+    @NotEmpty(message = "Hourly forecast data cannot be empty")
+    @Valid
+    private List<HourlyWeatherDTO> hourlyForecast;
+}
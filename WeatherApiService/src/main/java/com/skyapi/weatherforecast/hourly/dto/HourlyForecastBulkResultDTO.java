@@ -0,0 +1,55 @@
+package com.skyapi.weatherforecast.hourly.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HourlyForecastBulkResultDTO {
+
+    public static final String STATUS_UPDATED = "UPDATED";
+    public static final String STATUS_UNCHANGED = "UNCHANGED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private int total;
+    private int updated;
+    private int unchanged;
+    private int failed;
+
+    /**
+     * Hours changed over all locations.
+     */
+    private HourlyForecastChangesDTO changes;
+
+    @JsonProperty("elapsed_millis")
+    private long elapsedMillis;
+
+    @JsonProperty("locations_per_second")
+    private double locationsPerSecond;
+
+    private List<ItemResult> results;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class ItemResult {
+
+        @JsonProperty("location_code")
+        private String locationCode;
+
+        private String status;
+
+        private String error;
+
+        private HourlyForecastChangesDTO changes;
+    }
+}
@@ -0,0 +1,35 @@
+package com.skyapi.weatherforecast.hourly.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * How an hourly forecast update changed the stored hours; only inserted, updated and deleted hours are written.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HourlyForecastChangesDTO {
+
+    private int inserted;
+
+    private int updated;
+
+    private int deleted;
+
+    private int unchanged;
+
+    public boolean hasChanges() {
+        return inserted > 0 || updated > 0 || deleted > 0;
+    }
+
+    public void add(HourlyForecastChangesDTO changes) {
+        inserted += changes.inserted;
+        updated += changes.updated;
+        deleted += changes.deleted;
+        unchanged += changes.unchanged;
+    }
+}
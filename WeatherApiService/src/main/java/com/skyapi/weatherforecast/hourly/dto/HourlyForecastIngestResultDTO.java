@@ -0,0 +1,58 @@
+package com.skyapi.weatherforecast.hourly.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HourlyForecastIngestResultDTO {
+
+    private long lines;
+    private long updated;
+    private long unchanged;
+
+    /**
+     * Records replaced by a later line for the same location before they were written.
+     */
+    private long superseded;
+
+    private long failed;
+
+    /**
+     * Hours changed over all locations.
+     */
+    private HourlyForecastChangesDTO changes;
+
+    @JsonProperty("elapsed_millis")
+    private long elapsedMillis;
+
+    @JsonProperty("locations_per_second")
+    private double locationsPerSecond;
+
+    private List<LineError> errors;
+
+    @JsonProperty("errors_truncated")
+    private boolean errorsTruncated;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class LineError {
+
+        private long line;
+
+        @JsonProperty("location_code")
+        private String locationCode;
+
+        private String error;
+    }
+}
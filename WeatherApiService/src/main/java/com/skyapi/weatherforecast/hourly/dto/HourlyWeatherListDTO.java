@@ -1,5 +1,6 @@
 package com.skyapi.weatherforecast.hourly.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -17,6 +18,12 @@ public class HourlyWeatherListDTO {
     @JsonProperty("hourly_forecast")
     private List<HourlyWeatherDTO> hourlyForecast = new ArrayList<>();
 
+    /**
+     * Only set in the response to an update.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private HourlyForecastChangesDTO changes;
+
     public void addWeatherHourlyDTO(HourlyWeatherDTO dto) {
         this.hourlyForecast.add(dto);
     }
@@ -0,0 +1,21 @@
+package com.skyapi.weatherforecast.hourly.repository;
+
+import com.skyapi.weatherforecast.common.Location;
+
+/**
+ * One hour of a forecast with the display fields of its location, read without loading any entity.
+ */
+public record HourlyForecastRow(int hourOfDay, int temperature, int precipitation, String status,
+                                String locationCode, String cityName, String regionName, String countryName,
+                                String countryCode) {
+
+    public Location location() {
+        return Location.builder()
+                .code(locationCode)
+                .cityName(cityName)
+                .regionName(regionName)
+                .countryName(countryName)
+                .countryCode(countryCode)
+                .build();
+    }
+}
@@ -15,4 +15,18 @@ public interface HourlyWeatherRepository extends JpaRepository<HourlyWeather, Ho
 			AND h.id.location.trashed = false
 			""")
     public List<HourlyWeather> findByLocationCode(String locationCode, int currentHour);
+
+    /**
+     * Same hours as {@link #findByLocationCode}, in hour order, as rows with the location display fields. One
+     * statement; unlike the entity query it does not load the location and its realtime weather.
+     */
+    @Query("""
+			SELECT new com.skyapi.weatherforecast.hourly.repository.HourlyForecastRow(
+			h.id.hourOfDay, h.temperature, h.precipitation, h.status,
+			l.code, l.cityName, l.regionName, l.countryName, l.countryCode)
+			FROM HourlyWeather h JOIN h.id.location l
+			WHERE l.code = ?1 AND h.id.hourOfDay > ?2 AND l.trashed = false
+			ORDER BY h.id.hourOfDay
+			""")
+    public List<HourlyForecastRow> findRowsByLocationCode(String locationCode, int currentHour);
 }
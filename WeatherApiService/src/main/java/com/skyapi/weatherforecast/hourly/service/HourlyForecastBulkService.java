@@ -0,0 +1,332 @@
+package com.skyapi.weatherforecast.hourly.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skyapi.weatherforecast.common.HourlyWeather;
+import com.skyapi.weatherforecast.exception.BadRequestException;
+import com.skyapi.weatherforecast.hourly.config.HourlyWeatherProperties;
+import com.skyapi.weatherforecast.hourly.dto.HourlyForecastBulkItemDTO;
+import com.skyapi.weatherforecast.hourly.dto.HourlyForecastBulkResultDTO;
+import com.skyapi.weatherforecast.hourly.dto.HourlyForecastBulkResultDTO.ItemResult;
+import com.skyapi.weatherforecast.hourly.dto.HourlyForecastChangesDTO;
+import com.skyapi.weatherforecast.hourly.dto.HourlyForecastIngestResultDTO;
+import com.skyapi.weatherforecast.hourly.dto.HourlyForecastIngestResultDTO.LineError;
+import com.skyapi.weatherforecast.hourly.dto.HourlyWeatherDTO;
+import com.skyapi.weatherforecast.location.utils.JsonStreamReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Replaces the hourly forecasts of many locations at once. Items are validated up front, then written
+ * chunk by chunk through {@link HourlyForecastWriter}, which resolves the locations of a chunk with one query
+ * and writes only the hours that changed; an invalid item or an unknown location only fails its own result,
+ * and a chunk that cannot be written only fails the items of that chunk.
+ * <p>
+ * NDJSON feeds are ingested as a stream instead, one location per line, so memory use does not grow with the
+ * size of the body.
+ */
+@Service
+public class HourlyForecastBulkService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HourlyForecastBulkService.class);
+
+    private static final String WRITE_FAILED = "Failed to write hourly forecast, please retry";
+
+    private final HourlyForecastWriter hourlyForecastWriter;
+
+    private final HourlyWeatherService hourlyWeatherService;
+
+    private final Validator validator;
+
+    private final ObjectMapper objectMapper;
+
+    private final int maxLocations;
+
+    private final int chunkSize;
+
+    private final int maxReportedErrors;
+
+    public HourlyForecastBulkService(HourlyForecastWriter hourlyForecastWriter, HourlyWeatherService hourlyWeatherService,
+                                     Validator validator, ObjectMapper objectMapper,
+                                     HourlyWeatherProperties properties) {
+        this.hourlyForecastWriter = hourlyForecastWriter;
+        this.hourlyWeatherService = hourlyWeatherService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.maxLocations = properties.getBulk().getMaxLocations();
+        this.chunkSize = Math.max(1, properties.getBulk().getChunkSize());
+        this.maxReportedErrors = properties.getBulk().getMaxReportedErrors();
+    }
+
+    public HourlyForecastBulkResultDTO update(List<HourlyForecastBulkItemDTO> items) throws BadRequestException {
+        if (items.isEmpty()) {
+            throw new BadRequestException("Hourly forecast data cannot be empty");
+        }
+
+        if (items.size() > maxLocations) {
+            throw new BadRequestException("Bulk update is limited to " + maxLocations + " locations");
+        }
+
+        long start = System.nanoTime();
+
+        ItemResult[] results = new ItemResult[items.size()];
+        List<HourlyForecastBulkItemDTO> valid = new ArrayList<>(items.size());
+        List<Integer> positions = new ArrayList<>(items.size());
+        Set<String> codes = new HashSet<>();
+
+        for (int i = 0; i < items.size(); i++) {
+            HourlyForecastBulkItemDTO item = items.get(i);
+            String error = validate(item);
+
+            if (error == null && !codes.add(item.getLocationCode())) {
+                error = "Duplicate location code in request";
+            }
+
+            if (error != null) {
+                results[i] = new ItemResult(item != null ? item.getLocationCode() : null,
+                        HourlyForecastBulkResultDTO.STATUS_FAILED, error, null);
+            } else {
+                valid.add(item);
+                positions.add(i);
+            }
+        }
+
+        HourlyForecastChangesDTO changes = new HourlyForecastChangesDTO();
+        int updated = 0;
+        int unchanged = 0;
+
+        for (int from = 0; from < valid.size(); from += chunkSize) {
+            int to = Math.min(from + chunkSize, valid.size());
+
+            Map<String, HourlyForecastUpdate> updates = write(valid.subList(from, to));
+
+            for (int i = from; i < to; i++) {
+                String locationCode = valid.get(i).getLocationCode();
+
+                if (updates == null) {
+                    results[positions.get(i)] = new ItemResult(locationCode, HourlyForecastBulkResultDTO.STATUS_FAILED,
+                            WRITE_FAILED, null);
+                    continue;
+                }
+
+                HourlyForecastUpdate update = updates.get(locationCode);
+
+                if (update == null) {
+                    results[positions.get(i)] = new ItemResult(locationCode, HourlyForecastBulkResultDTO.STATUS_FAILED,
+                            "No location found with the given code: " + locationCode, null);
+                    continue;
+                }
+
+                String status;
+
+                if (update.changes().hasChanges()) {
+                    status = HourlyForecastBulkResultDTO.STATUS_UPDATED;
+                    updated++;
+                } else {
+                    status = HourlyForecastBulkResultDTO.STATUS_UNCHANGED;
+                    unchanged++;
+                }
+
+                changes.add(update.changes());
+                results[positions.get(i)] = new ItemResult(locationCode, status, null, update.changes());
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        int applied = updated + unchanged;
+
+        return HourlyForecastBulkResultDTO.builder()
+                .total(items.size())
+                .updated(updated)
+                .unchanged(unchanged)
+                .failed(items.size() - applied)
+                .changes(changes)
+                .elapsedMillis(elapsedNanos / 1_000_000)
+                .locationsPerSecond(elapsedNanos > 0 ? applied * 1_000_000_000.0 / elapsedNanos : 0)
+                .results(List.of(results))
+                .build();
+    }
+
+    /**
+     * Ingests newline-delimited JSON records, each the full forecast of one location. A later record for the
+     * same location replaces an earlier one that has not been written yet; across chunks records are simply
+     * applied in order.
+     */
+    public HourlyForecastIngestResultDTO ingest(InputStream inputStream) throws IOException {
+        long start = System.nanoTime();
+
+        Ingest ingest = new Ingest();
+
+        JsonStreamReader.read(objectMapper, inputStream, JsonStreamReader.APPLICATION_NDJSON,
+                HourlyForecastBulkItemDTO.class, ingest::accept);
+        ingest.flush();
+
+        long elapsedNanos = System.nanoTime() - start;
+        long applied = ingest.updated + ingest.unchanged;
+
+        return HourlyForecastIngestResultDTO.builder()
+                .lines(ingest.lines)
+                .updated(ingest.updated)
+                .unchanged(ingest.unchanged)
+                .superseded(ingest.superseded)
+                .failed(ingest.failed)
+                .changes(ingest.changes)
+                .elapsedMillis(elapsedNanos / 1_000_000)
+                .locationsPerSecond(elapsedNanos > 0 ? applied * 1_000_000_000.0 / elapsedNanos : 0)
+                .errors(ingest.errors)
+                .errorsTruncated(ingest.failed > ingest.errors.size())
+                .build();
+    }
+
+    /**
+     * Writes one chunk in one transaction and refreshes the in-memory forecasts of the written locations.
+     *
+     * @return the updates by location code, or null if the chunk could not be written; earlier chunks are
+     * already committed, so only the items of this one fail
+     */
+    private Map<String, HourlyForecastUpdate> write(List<HourlyForecastBulkItemDTO> items) {
+        Map<String, List<HourlyWeather>> forecasts = new LinkedHashMap<>();
+
+        for (HourlyForecastBulkItemDTO item : items) {
+            forecasts.put(item.getLocationCode(), toEntities(item.getHourlyForecast()));
+        }
+
+        Map<String, HourlyForecastUpdate> updates;
+
+        try {
+            updates = hourlyForecastWriter.write(forecasts);
+        } catch (RuntimeException ex) {
+            LOGGER.error("Failed to write the hourly forecasts of " + forecasts.size() + " locations: "
+                    + ex.getMessage(), ex);
+            return null;
+        }
+
+        updates.forEach(hourlyWeatherService::refresh);
+
+        return updates;
+    }
+
+    private static List<HourlyWeather> toEntities(List<HourlyWeatherDTO> listDTO) {
+        List<HourlyWeather> listEntity = new ArrayList<>(listDTO.size());
+
+        for (HourlyWeatherDTO dto : listDTO) {
+            listEntity.add(new HourlyWeather()
+                    .hourOfDay(dto.getHourOfDay())
+                    .temperature(dto.getTemperature())
+                    .precipitation(dto.getPrecipitation())
+                    .status(dto.getStatus()));
+        }
+
+        return listEntity;
+    }
+
+    private String validate(HourlyForecastBulkItemDTO item) {
+        if (item == null) {
+            return "Item must not be null";
+        }
+
+        Set<ConstraintViolation<HourlyForecastBulkItemDTO>> violations = validator.validate(item);
+
+        if (violations.isEmpty()) {
+            return null;
+        }
+
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .distinct()
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private class Ingest {
+
+        private record Pending(long line, HourlyForecastBulkItemDTO item) {
+        }
+
+        // at most one chunk of records waiting to be written, by location code
+        private final Map<String, Pending> pending = new LinkedHashMap<>();
+
+        private final List<LineError> errors = new ArrayList<>();
+
+        private final HourlyForecastChangesDTO changes = new HourlyForecastChangesDTO();
+
+        private long lines;
+        private long updated;
+        private long unchanged;
+        private long superseded;
+        private long failed;
+
+        void accept(long line, HourlyForecastBulkItemDTO item, String parseError) {
+            lines++;
+
+            String error = parseError != null ? parseError : validate(item);
+
+            if (error != null) {
+                fail(line, item != null ? item.getLocationCode() : null, error);
+                return;
+            }
+
+            if (pending.put(item.getLocationCode(), new Pending(line, item)) != null) {
+                superseded++;
+            }
+
+            if (pending.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            Map<String, HourlyForecastUpdate> updates = write(pending.values().stream().map(Pending::item).toList());
+
+            for (Pending entry : pending.values()) {
+                String locationCode = entry.item().getLocationCode();
+
+                if (updates == null) {
+                    fail(entry.line(), locationCode, WRITE_FAILED);
+                    continue;
+                }
+
+                HourlyForecastUpdate update = updates.get(locationCode);
+
+                if (update == null) {
+                    fail(entry.line(), locationCode, "No location found with the given code: " + locationCode);
+                    continue;
+                }
+
+                if (update.changes().hasChanges()) {
+                    updated++;
+                } else {
+                    unchanged++;
+                }
+
+                changes.add(update.changes());
+            }
+
+            pending.clear();
+        }
+
+        private void fail(long line, String locationCode, String error) {
+            failed++;
+
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new LineError(line, locationCode, error));
+            }
+        }
+    }
+}
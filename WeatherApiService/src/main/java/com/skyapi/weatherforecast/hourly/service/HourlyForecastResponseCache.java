@@ -0,0 +1,130 @@
+package com.skyapi.weatherforecast.hourly.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skyapi.weatherforecast.cache.ExpiringCache;
+import com.skyapi.weatherforecast.common.HourlyWeather;
+import com.skyapi.weatherforecast.hourly.config.HourlyWeatherProperties;
+import com.skyapi.weatherforecast.hourly.dto.HourlyForecastChangesDTO;
+import com.skyapi.weatherforecast.hourly.dto.HourlyWeatherDTO;
+import com.skyapi.weatherforecast.hourly.dto.HourlyWeatherListDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Serialized hourly forecast responses by location code and current hour.
+ * <p>
+ * A response depends only on the forecast of the location and the current hour, so a location has at most
+ * 25 of them: one per hour, and the full forecast for -1. They are kept together in one entry per location,
+ * built lazily as hours are requested and dropped as a unit when the forecast changes. Entries are bounded
+ * by location and evicted least recently used first.
+ * <p>
+ * An entry also remembers the {@link HourlyForecastStore.Forecast} its responses were built from, and is only
+ * served for that same record, so a response built concurrently with an update is never served after it.
+ */
+@Component
+public class HourlyForecastResponseCache {
+
+    private static final byte[] NO_CONTENT = new byte[0];
+
+    private final ExpiringCache<String, Responses> cache;
+
+    private final ObjectMapper objectMapper;
+
+    public HourlyForecastResponseCache(HourlyWeatherProperties properties, ObjectMapper objectMapper) {
+        HourlyWeatherProperties.Cache cacheProperties = properties.getCache();
+
+        this.cache = cacheProperties.isEnabled()
+                ? new ExpiringCache<>(cacheProperties.getMaxSize(), cacheProperties.getTtl())
+                : null;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param forecast the forecast of the location as currently stored
+     * @return the JSON of the forecast after {@code currentHour}, or null if there is none
+     */
+    public byte[] get(String locationCode, HourlyForecastStore.Forecast forecast, int currentHour) {
+        if (cache == null) {
+            return orNull(serialize(forecast.after(currentHour)));
+        }
+
+        Responses responses = cache.get(locationCode);
+
+        if (responses == null || responses.forecast != forecast) {
+            responses = new Responses(forecast);
+            cache.put(locationCode, responses);
+        }
+
+        int slot = Math.min(Math.max(currentHour, -1), HourlyForecastStore.HOURS - 1) + 1;
+        byte[] json = responses.json.get(slot);
+
+        if (json == null) {
+            json = serialize(forecast.after(currentHour));
+            responses.json.set(slot, json);
+        }
+
+        return orNull(json);
+    }
+
+    public void invalidate(String locationCode) {
+        if (cache != null) {
+            cache.invalidate(locationCode);
+        }
+    }
+
+    /**
+     * @param hourlyForecast the forecast of one location, in hour order
+     * @return the JSON of the forecast as a {@link HourlyWeatherListDTO}, or an empty array if there is none
+     */
+    public byte[] serialize(List<HourlyWeather> hourlyForecast) {
+        return serialize(hourlyForecast, null);
+    }
+
+    /**
+     * @param changes the changes of the update that produced the forecast, or null outside of an update
+     */
+    public byte[] serialize(List<HourlyWeather> hourlyForecast, HourlyForecastChangesDTO changes) {
+        if (hourlyForecast.isEmpty()) {
+            return NO_CONTENT;
+        }
+
+        HourlyWeatherListDTO listDTO = new HourlyWeatherListDTO();
+        listDTO.setLocation(hourlyForecast.get(0).getId().getLocation().toString());
+        listDTO.setChanges(changes);
+
+        for (HourlyWeather hourlyWeather : hourlyForecast) {
+            listDTO.addWeatherHourlyDTO(HourlyWeatherDTO.builder()
+                    .hourOfDay(hourlyWeather.getId().getHourOfDay())
+                    .temperature(hourlyWeather.getTemperature())
+                    .precipitation(hourlyWeather.getPrecipitation())
+                    .status(hourlyWeather.getStatus())
+                    .build());
+        }
+
+        try {
+            return objectMapper.writeValueAsBytes(listDTO);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Failed to serialize hourly forecast of "
+                    + listDTO.getLocation(), ex);
+        }
+    }
+
+    private static byte[] orNull(byte[] json) {
+        return json.length == 0 ? null : json;
+    }
+
+    private static final class Responses {
+
+        private final HourlyForecastStore.Forecast forecast;
+
+        // slot n holds the response for current hour n - 1
+        private final AtomicReferenceArray<byte[]> json = new AtomicReferenceArray<>(HourlyForecastStore.HOURS + 1);
+
+        private Responses(HourlyForecastStore.Forecast forecast) {
+            this.forecast = forecast;
+        }
+    }
+}
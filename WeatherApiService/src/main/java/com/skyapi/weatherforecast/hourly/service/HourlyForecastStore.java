@@ -0,0 +1,279 @@
+package com.skyapi.weatherforecast.hourly.service;
+
+import com.skyapi.weatherforecast.common.HourlyWeather;
+import com.skyapi.weatherforecast.common.HourlyWeatherId;
+import com.skyapi.weatherforecast.common.Location;
+import com.skyapi.weatherforecast.hourly.config.HourlyWeatherProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hourly forecasts of all locations, one dense record of 24 slots per location code.
+ * <p>
+ * A record keeps temperature and precipitation as bytes, the status as an index into a shared dictionary
+ * and the hours that have a forecast as a bitmask, so answering "the hours after the current one" is a scan
+ * over at most 24 bits. Records are immutable and replaced as a whole when a forecast changes.
+ * <p>
+ * Only forecasts with at least one hour are stored. Unknown and trashed locations have none, so they never
+ * get a record and reads for them keep reaching the database, where they fail.
+ * <p>
+ * Records are only ever added as loaded from the database and removed when the forecast changes, so the next
+ * read loads the committed forecast. They also expire, which bounds how long changes made elsewhere, by other
+ * instances or directly in the database, go unseen.
+ */
+@Component
+public class HourlyForecastStore {
+
+    static final int HOURS = 24;
+
+    // statuses are free text; beyond this many distinct values forecasts are no longer stored
+    private static final int MAX_STATUSES = Character.MAX_VALUE;
+
+    private final Map<String, Forecast> forecasts = new ConcurrentHashMap<>();
+
+    private final Map<String, Character> statusCodes = new ConcurrentHashMap<>();
+
+    private volatile String[] statuses = new String[0];
+
+    private final long ttlNanos;
+
+    public HourlyForecastStore(HourlyWeatherProperties properties) {
+        Duration ttl = properties.getStore().getTtl();
+
+        this.ttlNanos = ttl == null || ttl.isZero() || ttl.isNegative() ? 0 : ttl.toNanos();
+    }
+
+    /**
+     * @return the forecast of the location, or null if it is not stored or has expired
+     */
+    public Forecast get(String locationCode) {
+        Forecast forecast = forecasts.get(locationCode);
+
+        if (forecast != null && forecast.isExpired(System.nanoTime())) {
+            forecasts.remove(locationCode, forecast);
+            return null;
+        }
+
+        return forecast;
+    }
+
+    /**
+     * Stores the full forecast of a location as loaded from the database, unless another read stored one
+     * meanwhile.
+     */
+    public void putIfAbsent(String locationCode, Location location, List<HourlyWeather> hourlyForecast) {
+        Forecast forecast = toForecast(location, hourlyForecast);
+
+        if (forecast != null) {
+            long now = System.nanoTime();
+
+            forecasts.compute(locationCode,
+                    (code, stored) -> stored == null || stored.isExpired(now) ? forecast : stored);
+        }
+    }
+
+    public void remove(String locationCode) {
+        forecasts.remove(locationCode);
+    }
+
+    public int size() {
+        return forecasts.size();
+    }
+
+    private Forecast toForecast(Location location, List<HourlyWeather> hourlyForecast) {
+        if (hourlyForecast.isEmpty()) {
+            return null;
+        }
+
+        byte[] temperature = new byte[HOURS];
+        byte[] precipitation = new byte[HOURS];
+        char[] status = new char[HOURS];
+        int presence = 0;
+
+        for (HourlyWeather hourlyWeather : hourlyForecast) {
+            int hour = hourlyWeather.getId().getHourOfDay();
+
+            if (hour < 0 || hour >= HOURS) {
+                return null;
+            }
+
+            Character code = statusCode(hourlyWeather.getStatus());
+
+            if (code == null) {
+                return null;
+            }
+
+            temperature[hour] = (byte) hourlyWeather.getTemperature();
+            precipitation[hour] = (byte) hourlyWeather.getPrecipitation();
+            status[hour] = code;
+            presence |= 1 << hour;
+        }
+
+        long expiresAt = ttlNanos == 0 ? 0 : System.nanoTime() + ttlNanos;
+
+        return new Forecast(display(location), temperature, precipitation, status, presence,
+                contentHash(hourlyForecast), expiresAt);
+    }
+
+    private Character statusCode(String status) {
+        if (status == null) {
+            return null;
+        }
+
+        Character code = statusCodes.get(status);
+
+        if (code != null) {
+            return code;
+        }
+
+        synchronized (this) {
+            code = statusCodes.get(status);
+
+            if (code == null) {
+                if (statuses.length == MAX_STATUSES) {
+                    return null;
+                }
+
+                code = (char) statuses.length;
+
+                String[] grown = Arrays.copyOf(statuses, statuses.length + 1);
+                grown[code] = status;
+
+                // published before the code, so a reader that sees the code also sees the status
+                statuses = grown;
+                statusCodes.put(status, code);
+            }
+
+            return code;
+        }
+    }
+
+    /**
+     * The first 64 bits of a SHA-256 digest of the forecast in hour order, so that forecasts differing in any value
+     * get different entity tags.
+     */
+    static long contentHash(List<HourlyWeather> hourlyForecast) {
+        if (hourlyForecast.isEmpty()) {
+            return 0;
+        }
+
+        List<HourlyWeather> sorted = new ArrayList<>(hourlyForecast);
+        sorted.sort(Comparator.comparingInt(hourlyWeather -> hourlyWeather.getId().getHourOfDay()));
+
+        MessageDigest digest;
+
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+
+        update(digest, String.valueOf(sorted.get(0).getId().getLocation()));
+
+        ByteBuffer values = ByteBuffer.allocate(3 * Integer.BYTES);
+
+        for (HourlyWeather hourlyWeather : sorted) {
+            values.clear();
+            values.putInt(hourlyWeather.getId().getHourOfDay())
+                    .putInt(hourlyWeather.getTemperature())
+                    .putInt(hourlyWeather.getPrecipitation());
+
+            digest.update(values.array());
+            update(digest, hourlyWeather.getStatus());
+        }
+
+        return ByteBuffer.wrap(digest.digest()).getLong();
+    }
+
+    // length-prefixed, so that adjacent strings cannot run into each other
+    private static void update(MessageDigest digest, String value) {
+        byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(value != null ? bytes.length : -1).array());
+        digest.update(bytes);
+    }
+
+    // only the fields a forecast response shows, so the stored record does not keep the entity graph alive
+    private static Location display(Location location) {
+        return Location.builder()
+                .code(location.getCode())
+                .cityName(location.getCityName())
+                .regionName(location.getRegionName())
+                .countryCode(location.getCountryCode())
+                .countryName(location.getCountryName())
+                .build();
+    }
+
+    public final class Forecast {
+
+        private final Location location;
+
+        private final byte[] temperature;
+        private final byte[] precipitation;
+        private final char[] status;
+
+        // bit n is set when hour n has a forecast
+        private final int presence;
+
+        private final long contentHash;
+
+        private final long expiresAt;
+
+        private Forecast(Location location, byte[] temperature, byte[] precipitation, char[] status, int presence,
+                         long contentHash, long expiresAt) {
+            this.location = location;
+            this.temperature = temperature;
+            this.precipitation = precipitation;
+            this.status = status;
+            this.presence = presence;
+            this.contentHash = contentHash;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * @return the forecast of the hours after {@code currentHour}, in hour order; all hours for -1
+         */
+        public List<HourlyWeather> after(int currentHour) {
+            int hours = currentHour >= HOURS - 1 ? 0 : presence & (-1 << Math.max(0, currentHour + 1));
+            List<HourlyWeather> hourlyForecast = new ArrayList<>(Integer.bitCount(hours));
+
+            String[] names = statuses;
+
+            while (hours != 0) {
+                int hour = Integer.numberOfTrailingZeros(hours);
+                hours &= hours - 1;
+
+                hourlyForecast.add(HourlyWeather.builder()
+                        .id(new HourlyWeatherId(hour, location))
+                        .temperature(temperature[hour])
+                        .precipitation(precipitation[hour])
+                        .status(names[status[hour]])
+                        .build());
+            }
+
+            return hourlyForecast;
+        }
+
+        /**
+         * @return the hash of the full forecast the record was built from, as computed by {@link #contentHash(List)}
+         */
+        public long contentHash() {
+            return contentHash;
+        }
+
+        private boolean isExpired(long now) {
+            return expiresAt != 0 && now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.skyapi.weatherforecast.hourly.service;
+
+import com.skyapi.weatherforecast.common.HourlyWeather;
+import com.skyapi.weatherforecast.common.Location;
+import com.skyapi.weatherforecast.hourly.dto.HourlyForecastChangesDTO;
+
+import java.util.List;
+
+/**
+ * @param hourlyForecast the full forecast of the location after the update, in hour order
+ */
+public record HourlyForecastUpdate(Location location, List<HourlyWeather> hourlyForecast,
+                                   HourlyForecastChangesDTO changes) {
+}
@@ -0,0 +1,105 @@
+package com.skyapi.weatherforecast.hourly.service;
+
+import com.skyapi.weatherforecast.common.HourlyWeather;
+import com.skyapi.weatherforecast.common.Location;
+import com.skyapi.weatherforecast.hourly.dto.HourlyForecastChangesDTO;
+import com.skyapi.weatherforecast.location.repository.LocationRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Replaces the hourly forecasts of locations in a single transaction. The locations and their stored forecasts
+ * are loaded by one query, and each forecast is diffed hour by hour against the request, so only inserted,
+ * changed and removed hours reach the database, as batched statements when the transaction flushes.
+ */
+@Component
+@RequiredArgsConstructor
+public class HourlyForecastWriter {
+
+    private final LocationRepository locationRepo;
+
+    /**
+     * @param forecasts the full new forecast by location code; a later entry for the same hour wins
+     * @return the applied update by location code; codes of unknown or trashed locations are missing
+     */
+    @Transactional
+    public Map<String, HourlyForecastUpdate> write(Map<String, List<HourlyWeather>> forecasts) {
+        Map<String, HourlyForecastUpdate> updates = new HashMap<>();
+
+        for (Location location : locationRepo.findWithHourlyWeatherByCodeIn(forecasts.keySet())) {
+            updates.put(location.getCode(), apply(location, forecasts.get(location.getCode())));
+        }
+
+        return updates;
+    }
+
+    private static HourlyForecastUpdate apply(Location location, List<HourlyWeather> hourlyWeatherInRequest) {
+        Map<Integer, HourlyWeather> requested = new HashMap<>();
+
+        for (HourlyWeather item : hourlyWeatherInRequest) {
+            requested.put(item.getId().getHourOfDay(), item);
+        }
+
+        List<HourlyWeather> hourlyWeatherInDB = location.getListHourlyWeather();
+
+        if (hourlyWeatherInDB == null) {
+            hourlyWeatherInDB = new ArrayList<>();
+            location.setListHourlyWeather(hourlyWeatherInDB);
+        }
+
+        int updated = 0;
+        int deleted = 0;
+        int unchanged = 0;
+
+        for (Iterator<HourlyWeather> iterator = hourlyWeatherInDB.iterator(); iterator.hasNext(); ) {
+            HourlyWeather stored = iterator.next();
+            HourlyWeather item = requested.remove(stored.getId().getHourOfDay());
+
+            if (item == null) {
+                // deleted through orphan removal
+                iterator.remove();
+                deleted++;
+            } else if (stored.getTemperature() != item.getTemperature()
+                    || stored.getPrecipitation() != item.getPrecipitation()
+                    || !Objects.equals(stored.getStatus(), item.getStatus())) {
+                stored.setTemperature(item.getTemperature());
+                stored.setPrecipitation(item.getPrecipitation());
+                stored.setStatus(item.getStatus());
+                updated++;
+            } else {
+                unchanged++;
+            }
+        }
+
+        // what is left are new hours, persisted through the cascade from the managed location
+        for (HourlyWeather item : requested.values()) {
+            hourlyWeatherInDB.add(new HourlyWeather()
+                    .id(location, item.getId().getHourOfDay())
+                    .temperature(item.getTemperature())
+                    .precipitation(item.getPrecipitation())
+                    .status(item.getStatus()));
+        }
+
+        HourlyForecastChangesDTO changes = HourlyForecastChangesDTO.builder()
+                .inserted(requested.size())
+                .updated(updated)
+                .deleted(deleted)
+                .unchanged(unchanged)
+                .build();
+
+        List<HourlyWeather> hourlyForecast = hourlyWeatherInDB.stream()
+                .sorted(Comparator.comparingInt(hourlyWeather -> hourlyWeather.getId().getHourOfDay()))
+                .toList();
+
+        return new HourlyForecastUpdate(location, hourlyForecast, changes);
+    }
+}
@@ -1,16 +1,23 @@
 package com.skyapi.weatherforecast.hourly.service;
 
 import com.skyapi.weatherforecast.common.HourlyWeather;
+import com.skyapi.weatherforecast.common.HourlyWeatherId;
 import com.skyapi.weatherforecast.common.Location;
 import com.skyapi.weatherforecast.exception.LocationNotFoundException;
+import com.skyapi.weatherforecast.hourly.dto.HourlyWeatherListDTO;
+import com.skyapi.weatherforecast.hourly.repository.HourlyForecastRow;
 import com.skyapi.weatherforecast.hourly.repository.HourlyWeatherRepository;
 import com.skyapi.weatherforecast.location.repository.LocationRepository;
+import com.skyapi.weatherforecast.location.service.LocationCodeIndex;
+import com.skyapi.weatherforecast.location.utils.CommonUtility;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -18,21 +25,37 @@ public class HourlyWeatherService {
 
     private final HourlyWeatherRepository hourlyWeatherRepo;
     private final LocationRepository locationRepo;
+    private final LocationCodeIndex locationCodeIndex;
+    private final HourlyForecastStore hourlyForecastStore;
+    private final HourlyForecastWriter hourlyForecastWriter;
+    private final HourlyForecastResponseCache hourlyForecastResponseCache;
 
     public List<HourlyWeather> getByLocation(Location location, int currentHour){
         String countryCode = location.getCountryCode();
         String cityName = location.getCityName();
 
-        Location locationInDB = locationRepo.findByCountryCodeAndCityName(countryCode, cityName);
+        String locationCode = locationCodeIndex.findCode(countryCode, cityName);
 
-        if (locationInDB == null) {
+        if (locationCode == null) {
             throw new LocationNotFoundException(countryCode, cityName);
         }
 
-        return hourlyWeatherRepo.findByLocationCode(locationInDB.getCode(), currentHour);
+        HourlyForecastStore.Forecast forecast = hourlyForecastStore.get(locationCode);
+
+        if (forecast != null) {
+            return forecast.after(currentHour);
+        }
+
+        return afterHour(loadForecast(locationCode), currentHour);
     }
 
     public List<HourlyWeather> getByLocationCode(String locationCode, int currentHour){
+        HourlyForecastStore.Forecast forecast = hourlyForecastStore.get(locationCode);
+
+        // only locations that exist are stored, and deleting one removes it
+        if (forecast != null) {
+            return forecast.after(currentHour);
+        }
 
         Location locationInDB = locationRepo.findByCode(locationCode);
 
@@ -40,34 +63,124 @@ public class HourlyWeatherService {
             throw new LocationNotFoundException(locationCode);
         }
 
-        return hourlyWeatherRepo.findByLocationCode(locationCode, currentHour);
+        return afterHour(loadForecast(locationCode), currentHour);
     }
 
-    public List<HourlyWeather> updateByLocationCode(String locationCode, List<HourlyWeather> hourlyWeatherInRequest) {
+    /**
+     * The forecast of the location after the given hour as the JSON of a {@link HourlyWeatherListDTO}. Responses
+     * are built from the stored forecast and kept until it changes.
+     *
+     * @return the JSON, or null if the location has no forecast after the hour
+     */
+    public byte[] getJsonByLocationCode(String locationCode, int currentHour) {
+        HourlyForecastStore.Forecast forecast = hourlyForecastStore.get(locationCode);
 
-        Location location = locationRepo.findByCode(locationCode);
+        if (forecast == null) {
+            List<HourlyWeather> hourlyForecast = getByLocationCode(locationCode, currentHour);
 
-        if (location == null) {
-            throw new LocationNotFoundException(locationCode);
+            // loaded into the store unless it cannot be stored, in which case it is served uncached
+            forecast = hourlyForecastStore.get(locationCode);
+
+            if (forecast == null) {
+                return hourlyForecast.isEmpty() ? null : hourlyForecastResponseCache.serialize(hourlyForecast);
+            }
         }
 
-        for (HourlyWeather item : hourlyWeatherInRequest) {
-            item.getId().setLocation(location);
+        return hourlyForecastResponseCache.get(locationCode, forecast, currentHour);
+    }
+
+    /**
+     * Replaces the forecast of the location, writing only the hours that differ from the stored forecast.
+     */
+    public HourlyForecastUpdate updateByLocationCode(String locationCode, List<HourlyWeather> hourlyWeatherInRequest) {
+        HourlyForecastUpdate update = hourlyForecastWriter.write(Map.of(locationCode, hourlyWeatherInRequest))
+                .get(locationCode);
+
+        if (update == null) {
+            throw new LocationNotFoundException(locationCode);
         }
 
-        List<HourlyWeather> hourlyWeatherInDB = location.getListHourlyWeather();
-        List<HourlyWeather> hourlyWeatherToBeRemoved = new ArrayList<>();
+        refresh(locationCode, update);
+
+        return update;
+    }
 
-        for (HourlyWeather item : hourlyWeatherInDB) {
-            if (!hourlyWeatherInRequest.contains(item)) {
-                hourlyWeatherToBeRemoved.add(item.getShallowCopy());
+    /**
+     * Brings the in-memory forecast and entity tag of a location up to date after its forecast was written. The
+     * stored forecast is dropped rather than replaced, since concurrent updates may finish in any order; the next
+     * read loads whichever forecast was committed last.
+     */
+    public void refresh(String locationCode, HourlyForecastUpdate update) {
+        hourlyForecastStore.remove(locationCode);
+        hourlyForecastResponseCache.invalidate(locationCode);
+    }
+
+    /**
+     * Entity tag of the forecast of the location after the given hour, derived from a hash of
+     * its full hourly forecast. The hash is kept with the stored forecast, so only the first request
+     * after a change loads the forecast.
+     *
+     * @return the quoted tag, or null if the location has no hourly forecast
+     */
+    public String getETag(String locationCode, int currentHour) {
+        HourlyForecastStore.Forecast forecast = hourlyForecastStore.get(locationCode);
+        long hash;
+
+        if (forecast != null) {
+            hash = forecast.contentHash();
+        } else {
+            List<HourlyWeather> hourlyForecast = loadForecast(locationCode);
+
+            if (hourlyForecast.isEmpty()) {
+                return null;
             }
+
+            // loaded into the store unless it cannot be stored, in which case it is hashed uncached
+            forecast = hourlyForecastStore.get(locationCode);
+            hash = forecast != null ? forecast.contentHash() : HourlyForecastStore.contentHash(hourlyForecast);
+        }
+
+        return CommonUtility.strongETag(locationCode, hash, Integer.toString(currentHour));
+    }
+
+    /**
+     * Forgets the stored forecast, and with it the content hash, of a location that was changed or deleted.
+     */
+    public void evict(String locationCode) {
+        hourlyForecastStore.remove(locationCode);
+        hourlyForecastResponseCache.invalidate(locationCode);
+    }
+
+    // the full forecast of the location, which is kept in the store for later reads. Nothing is stored without
+    // rows, since unknown and trashed locations have none and must keep failing on the next read
+    private List<HourlyWeather> loadForecast(String locationCode) {
+        List<HourlyForecastRow> rows = hourlyWeatherRepo.findRowsByLocationCode(locationCode, -1);
+
+        if (rows.isEmpty()) {
+            return List.of();
         }
 
-        for (HourlyWeather item : hourlyWeatherToBeRemoved) {
-            hourlyWeatherInDB.remove(item);
+        Location location = rows.get(0).location();
+        List<HourlyWeather> hourlyForecast = new ArrayList<>(rows.size());
+
+        for (HourlyForecastRow row : rows) {
+            hourlyForecast.add(HourlyWeather.builder()
+                    .id(new HourlyWeatherId(row.hourOfDay(), location))
+                    .temperature(row.temperature())
+                    .precipitation(row.precipitation())
+                    .status(row.status())
+                    .build());
         }
 
-        return hourlyWeatherRepo.saveAll(hourlyWeatherInRequest);
+        hourlyForecastStore.putIfAbsent(locationCode, location, hourlyForecast);
+
+        return hourlyForecast;
+    }
+
+    private static List<HourlyWeather> afterHour(List<HourlyWeather> hourlyForecast, int currentHour) {
+        return hourlyForecast.stream()
+                .filter(hourlyWeather -> hourlyWeather.getId().getHourOfDay() > currentHour)
+                .sorted(Comparator.comparingInt(hourlyWeather -> hourlyWeather.getId().getHourOfDay()))
+                .toList();
     }
 }
@@ -0,0 +1,81 @@
+package com.skyapi.weatherforecast.location.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "geolocation")
+@Data
+public class GeolocationProperties {
+
+    /**
+     * Lookup engine: LIBRARY queries the BIN file through IP2Location, INDEXED compiles it into primitive arrays.
+     */
+    private Engine engine = Engine.LIBRARY;
+
+    private Database database = new Database();
+
+    private Cache cache = new Cache();
+
+    private NegativeCache negativeCache = new NegativeCache();
+
+    private Batch batch = new Batch();
+
+    public enum Engine {
+        LIBRARY, INDEXED
+    }
+
+    @Data
+    public static class Database {
+
+        /**
+         * External IP2Location BIN file. When not set, or not readable, the database bundled on the classpath is used.
+         */
+        private String path;
+
+        /**
+         * Read the external file through a read-only memory mapping instead of copying it onto the heap.
+         */
+        private boolean memoryMapped = true;
+
+        /**
+         * Poll the external file and reload it in the background when it changes.
+         * Publish updates by renaming a new file over the old one; a mapped file must not be rewritten in place.
+         */
+        private boolean watch = false;
+
+        private Duration watchInterval = Duration.ofMinutes(1);
+    }
+
+    @Data
+    public static class Cache {
+
+        private boolean enabled = true;
+        private int maxSize = 10_000;
+        private Duration ttl = Duration.ofMinutes(10);
+    }
+
+    /**
+     * Remembers addresses that could not be geolocated, or that belong to a city we do not serve,
+     * so repeated requests from them are answered without another lookup.
+     */
+    @Data
+    public static class NegativeCache {
+
+        private boolean enabled = true;
+        private int maxSize = 10_000;
+        private Duration ttl = Duration.ofMinutes(1);
+    }
+
+    @Data
+    public static class Batch {
+
+        /**
+         * Upper bound on the distinct addresses resolved by one batch request.
+         */
+        private int maxAddresses = 100_000;
+    }
+}
@@ -0,0 +1,26 @@
+package com.skyapi.weatherforecast.location.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "location.matching")
+@Data
+public class LocationMatchingProperties {
+
+    /**
+     * City names as reported by the IP database, mapped to the city name used in our locations,
+     * e.g. {@code location.matching.city-aliases[Frankfurt\ am\ Main]=Frankfurt}. Both sides are matched
+     * ignoring case and accents.
+     */
+    private Map<String, String> cityAliases = new HashMap<>();
+
+    /**
+     * Upper bound on the distinct unmatched (country code, city name) pairs that are counted individually.
+     */
+    private int maxUnmatchedNames = 1000;
+}
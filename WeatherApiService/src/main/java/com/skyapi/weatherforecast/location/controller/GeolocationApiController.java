@@ -0,0 +1,136 @@
+package com.skyapi.weatherforecast.location.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.skyapi.weatherforecast.accesslog.AccessLog;
+import com.skyapi.weatherforecast.accesslog.AccessLogStats;
+import com.skyapi.weatherforecast.exception.BadRequestException;
+import com.skyapi.weatherforecast.location.dto.GeolocationResultDTO;
+import com.skyapi.weatherforecast.location.dto.UnmatchedLocationsDTO;
+import com.skyapi.weatherforecast.location.geolocation.GeolocationDatabaseStatus;
+import com.skyapi.weatherforecast.location.service.GeolocationBatchService;
+import com.skyapi.weatherforecast.location.service.GeolocationService;
+import com.skyapi.weatherforecast.location.service.LocationCodeIndex;
+import com.skyapi.weatherforecast.location.utils.JsonStreamReader;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/v1/geolocation")
+@RequiredArgsConstructor
+public class GeolocationApiController {
+
+    // results are pushed to the client in chunks of this many lines
+    private static final int FLUSH_INTERVAL = 256;
+
+    private final GeolocationService geolocationService;
+
+    private final GeolocationBatchService geolocationBatchService;
+
+    private final LocationCodeIndex locationCodeIndex;
+
+    private final AccessLog accessLog;
+
+    private final ObjectMapper objectMapper;
+
+    @GetMapping("/database")
+    public ResponseEntity<GeolocationDatabaseStatus> getDatabaseStatus() {
+        return ResponseEntity.ok(geolocationService.getDatabaseStatus());
+    }
+
+    @PostMapping("/database/reload")
+    public ResponseEntity<GeolocationDatabaseStatus> reloadDatabase() {
+        return ResponseEntity.ok(geolocationService.reload());
+    }
+
+    @GetMapping("/access-log")
+    public ResponseEntity<AccessLogStats> getAccessLogStats() {
+        return ResponseEntity.ok(accessLog.stats());
+    }
+
+    @GetMapping("/unmatched")
+    public ResponseEntity<UnmatchedLocationsDTO> getUnmatchedLocations() {
+        return ResponseEntity.ok(locationCodeIndex.getUnmatched());
+    }
+
+    /**
+     * Resolves a JSON array, or an NDJSON stream, of IP addresses. Results are written as NDJSON
+     * while the request body is still being read, one line per distinct address.
+     */
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, JsonStreamReader.APPLICATION_NDJSON})
+    public void batchLookup(HttpServletRequest request, HttpServletResponse response)
+            throws IOException, BadRequestException {
+
+        response.setContentType(JsonStreamReader.APPLICATION_NDJSON);
+
+        GeolocationBatchService.Batch batch = geolocationBatchService.newBatch();
+
+        // the response is only flushed explicitly, so a body rejected up front can still be answered with a 400
+        try (SequenceWriter writer = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM)
+                .withRootValueSeparator("\n")
+                .writeValues(response.getOutputStream())) {
+
+            int[] written = {0};
+
+            try {
+                JsonStreamReader.read(objectMapper, request.getInputStream(), request.getContentType(), String.class,
+                        (position, ipAddress, error) -> {
+                            GeolocationResultDTO result;
+
+                            if (error != null) {
+                                result = GeolocationResultDTO.builder()
+                                        .status(GeolocationResultDTO.STATUS_FAILED)
+                                        .error("Line " + position + ": " + error)
+                                        .build();
+                            } else if (batch.isFull() && !batch.contains(ipAddress)) {
+                                throw new BatchLimitExceededException(batch.getMaxAddresses());
+                            } else {
+                                result = batch.resolve(ipAddress);
+                            }
+
+                            if (result != null) {
+                                writer.write(result);
+
+                                if (++written[0] % FLUSH_INTERVAL == 0) {
+                                    writer.flush();
+                                    response.flushBuffer();
+                                }
+                            }
+                        });
+
+            } catch (JsonProcessingException | BatchLimitExceededException ex) {
+                String message = ex instanceof JsonProcessingException jsonException
+                        ? jsonException.getOriginalMessage()
+                        : ex.getMessage();
+
+                if (written[0] == 0 && !response.isCommitted()) {
+                    // drop the NDJSON content type so the error is rendered as a regular JSON error
+                    response.reset();
+                    throw new BadRequestException(message);
+                }
+
+                writer.write(GeolocationResultDTO.builder()
+                        .status(GeolocationResultDTO.STATUS_FAILED)
+                        .error(message)
+                        .build());
+            }
+        }
+    }
+
+    private static class BatchLimitExceededException extends IOException {
+
+        BatchLimitExceededException(int maxAddresses) {
+            super("Batch is limited to " + maxAddresses + " distinct IP addresses");
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.skyapi.weatherforecast.location.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({"ip", "status", "city_name", "region_name", "country_code", "country_name", "location_code", "error"})
+public class GeolocationResultDTO {
+
+    public static final String STATUS_OK = "OK";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private String ip;
+
+    private String status;
+
+    @JsonProperty("city_name")
+    private String cityName;
+
+    @JsonProperty("region_name")
+    private String regionName;
+
+    @JsonProperty("country_code")
+    private String countryCode;
+
+    @JsonProperty("country_name")
+    private String countryName;
+
+    @JsonProperty("location_code")
+    private String locationCode;
+
+    private String error;
+}
@@ -0,0 +1,38 @@
+package com.skyapi.weatherforecast.location.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UnmatchedLocationsDTO {
+
+    @JsonProperty("total_unmatched")
+    private long totalUnmatched;
+
+    @JsonProperty("distinct_names")
+    private int distinctNames;
+
+    private List<UnmatchedName> names;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class UnmatchedName {
+
+        @JsonProperty("country_code")
+        private String countryCode;
+
+        @JsonProperty("city_name")
+        private String cityName;
+
+        private long count;
+    }
+}
@@ -0,0 +1,41 @@
+package com.skyapi.weatherforecast.location.geolocation;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.skyapi.weatherforecast.cache.CacheStats;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GeolocationDatabaseStatus {
+
+    private String engine;
+    private String source;
+
+    @JsonProperty("entry_count")
+    private int entryCount;
+
+    @JsonProperty("memory_footprint_bytes")
+    private long memoryFootprintBytes;
+
+    @JsonProperty("load_duration_ms")
+    private long loadDurationMillis;
+
+    @JsonProperty("loaded_at")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime loadedAt;
+
+    private long reloads;
+
+    private CacheStats cache;
+
+    @JsonProperty("negative_cache")
+    private CacheStats negativeCache;
+}
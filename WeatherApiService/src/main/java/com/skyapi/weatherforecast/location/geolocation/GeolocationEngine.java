@@ -0,0 +1,17 @@
+package com.skyapi.weatherforecast.location.geolocation;
+
+import com.skyapi.weatherforecast.common.Location;
+import com.skyapi.weatherforecast.exception.GeolocationException;
+
+public interface GeolocationEngine {
+
+    Location lookup(String ipAddress) throws GeolocationException;
+
+    int getEntryCount();
+
+    /**
+     * Estimated heap bytes held by the engine; memory-mapped files are not counted.
+     */
+    long getMemoryFootprint();
+
+}
@@ -0,0 +1,242 @@
+package com.skyapi.weatherforecast.location.geolocation;
+
+import com.skyapi.weatherforecast.common.Location;
+import com.skyapi.weatherforecast.exception.GeolocationException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves IPv4 addresses from primitive arrays compiled out of an IP2Location DB3 (or richer) BIN file.
+ * <p>
+ * {@code rangeStarts} holds the sorted first address of every range and {@code recordIndexes} points each range
+ * at a deduplicated (country, region, city) record, so finding the record of an address is a binary search that
+ * allocates nothing. Records are shared by all addresses of a city and must not be modified; callers that hand a
+ * location on copy it first.
+ * Addresses the index does not cover (IPv6) are delegated to the fallback engine.
+ */
+public class IndexedGeolocationEngine implements GeolocationEngine {
+
+    private static final long MAX_IPV4 = 0xFFFFFFFFL;
+    private static final String IPV4_MAPPED_PREFIX = "::ffff:";
+
+    // IP2Location column positions of country, region and city are the same for every DB type from DB3 up
+    private static final int MIN_DB_TYPE = 3;
+    private static final int COUNTRY_OFFSET = 4;
+    private static final int REGION_OFFSET = 8;
+    private static final int CITY_OFFSET = 12;
+    private static final int COUNTRY_LONG_OFFSET = 3;
+
+    // rough per-object sizes used to estimate the footprint of the record table
+    private static final int LOCATION_BYTES = 64;
+    private static final int STRING_BYTES = 40;
+
+    private final long[] rangeStarts;
+    private final int[] recordIndexes;
+    private final Location[] records;
+
+    private final long memoryFootprint;
+
+    private final GeolocationEngine fallback;
+
+    private IndexedGeolocationEngine(long[] rangeStarts, int[] recordIndexes, Location[] records,
+                                     long stringBytes, GeolocationEngine fallback) {
+        this.rangeStarts = rangeStarts;
+        this.recordIndexes = recordIndexes;
+        this.records = records;
+        this.fallback = fallback;
+        this.memoryFootprint = (long) rangeStarts.length * Long.BYTES + (long) recordIndexes.length * Integer.BYTES
+                + (long) records.length * (LOCATION_BYTES + Integer.BYTES) + stringBytes;
+    }
+
+    public static IndexedGeolocationEngine build(ByteBuffer database, GeolocationEngine fallback) throws IOException {
+        ByteBuffer buffer = database.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+
+        int dbType = buffer.get(0);
+        int dbColumn = buffer.get(1);
+        int dbCount = buffer.getInt(5);
+        int baseAddr = buffer.getInt(9);
+
+        if (dbType < MIN_DB_TYPE || dbCount < 2) {
+            throw new IOException("Unsupported IP2Location database type DB" + dbType + " for the indexed engine");
+        }
+
+        int columnSize = dbColumn << 2;
+
+        // the last row only marks the end of the address space, so it does not start a range of its own
+        int rangeCount = dbCount - 1;
+
+        long[] rangeStarts = new long[rangeCount];
+        int[] recordIndexes = new int[rangeCount];
+
+        Map<Integer, String> strings = new HashMap<>();
+        Map<String, Integer> recordIds = new HashMap<>();
+        List<Location> records = new ArrayList<>();
+
+        for (int i = 0; i < rangeCount; i++) {
+            int row = baseAddr - 1 + i * columnSize;
+
+            rangeStarts[i] = Integer.toUnsignedLong(buffer.getInt(row));
+
+            int countryPointer = buffer.getInt(row + COUNTRY_OFFSET);
+            String countryCode = readString(buffer, countryPointer, strings);
+            String countryName = readString(buffer, countryPointer + COUNTRY_LONG_OFFSET, strings);
+            String regionName = readString(buffer, buffer.getInt(row + REGION_OFFSET), strings);
+            String cityName = readString(buffer, buffer.getInt(row + CITY_OFFSET), strings);
+
+            String key = countryCode + '\u0000' + countryName + '\u0000' + regionName + '\u0000' + cityName;
+
+            Integer recordId = recordIds.get(key);
+
+            if (recordId == null) {
+                recordId = records.size();
+                recordIds.put(key, recordId);
+                records.add(new Location(cityName, regionName, countryName, countryCode));
+            }
+
+            recordIndexes[i] = recordId;
+        }
+
+        long stringBytes = 0;
+        for (String value : strings.values()) {
+            stringBytes += STRING_BYTES + value.length();
+        }
+
+        return new IndexedGeolocationEngine(rangeStarts, recordIndexes, records.toArray(new Location[0]),
+                stringBytes, fallback);
+    }
+
+    @Override
+    public Location lookup(String ipAddress) throws GeolocationException {
+        int recordIndex = lookupRecordIndex(ipAddress);
+
+        if (recordIndex < 0) {
+            return fallback.lookup(ipAddress);
+        }
+
+        return records[recordIndex];
+    }
+
+    /**
+     * @return the index of the record covering the address, or -1 if the address has to be resolved by the fallback engine
+     */
+    public int lookupRecordIndex(String ipAddress) throws GeolocationException {
+        long ipNumber = parseIPv4(ipAddress);
+
+        if (ipNumber < 0) {
+            if (fallback != null && ipAddress != null && ipAddress.indexOf(':') >= 0) {
+                return -1;
+            }
+
+            throw new GeolocationException("Geolocation failed with status: INVALID_IP_ADDRESS");
+        }
+
+        return recordIndexes[findRange(ipNumber)];
+    }
+
+    /**
+     * @return the shared record, which must not be modified
+     */
+    public Location getRecord(int recordIndex) {
+        return records[recordIndex];
+    }
+
+    @Override
+    public int getEntryCount() {
+        return rangeStarts.length;
+    }
+
+    @Override
+    public long getMemoryFootprint() {
+        return memoryFootprint;
+    }
+
+    public int getRecordCount() {
+        return records.length;
+    }
+
+    private int findRange(long ipNumber) {
+        // the library treats the broadcast address as part of the last range
+        long target = ipNumber == MAX_IPV4 ? MAX_IPV4 - 1 : ipNumber;
+
+        int low = 0;
+        int high = rangeStarts.length - 1;
+
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+
+            if (rangeStarts[mid] <= target) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        return low;
+    }
+
+    static long parseIPv4(String ipAddress) {
+        if (ipAddress == null) {
+            return -1;
+        }
+
+        int start = 0;
+        int end = ipAddress.length();
+
+        if (ipAddress.regionMatches(true, 0, IPV4_MAPPED_PREFIX, 0, IPV4_MAPPED_PREFIX.length())) {
+            start = IPV4_MAPPED_PREFIX.length();
+        }
+
+        long result = 0;
+        int octets = 0;
+        int value = 0;
+        int digits = 0;
+
+        for (int i = start; i < end; i++) {
+            char c = ipAddress.charAt(i);
+
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                if (++digits > 3 || value > 255) {
+                    return -1;
+                }
+            } else if (c == '.') {
+                if (digits == 0 || ++octets > 3) {
+                    return -1;
+                }
+                result = (result << 8) | value;
+                value = 0;
+                digits = 0;
+            } else {
+                return -1;
+            }
+        }
+
+        if (digits == 0 || octets != 3) {
+            return -1;
+        }
+
+        return (result << 8) | value;
+    }
+
+    private static String readString(ByteBuffer buffer, int position, Map<Integer, String> strings) {
+        String value = strings.get(position);
+
+        if (value == null) {
+            int length = buffer.get(position) & 0xFF;
+            byte[] bytes = new byte[length];
+            buffer.get(position + 1, bytes);
+
+            value = new String(bytes, StandardCharsets.UTF_8);
+            strings.put(position, value);
+        }
+
+        return value;
+    }
+}
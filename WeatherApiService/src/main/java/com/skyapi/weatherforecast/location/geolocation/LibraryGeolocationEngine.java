@@ -0,0 +1,51 @@
+package com.skyapi.weatherforecast.location.geolocation;
+
+import com.ip2location.IP2Location;
+import com.ip2location.IPResult;
+import com.skyapi.weatherforecast.common.Location;
+import com.skyapi.weatherforecast.exception.GeolocationException;
+
+import java.io.IOException;
+
+/**
+ * Queries the IP2Location BIN database through the IP2Location library.
+ */
+public class LibraryGeolocationEngine implements GeolocationEngine {
+
+    private final IP2Location ipLocator;
+    private final int entryCount;
+    private final long memoryFootprint;
+
+    public LibraryGeolocationEngine(IP2Location ipLocator, int entryCount, long memoryFootprint) {
+        this.ipLocator = ipLocator;
+        this.entryCount = entryCount;
+        this.memoryFootprint = memoryFootprint;
+    }
+
+    @Override
+    public Location lookup(String ipAddress) throws GeolocationException {
+
+        try {
+            IPResult result = ipLocator.IPQuery(ipAddress);
+
+            if (!"OK".equals(result.getStatus())) {
+                throw new GeolocationException("Geolocation failed with status: " + result.getStatus());
+            }
+
+            return new Location(result.getCity(), result.getRegion(), result.getCountryLong(), result.getCountryShort());
+
+        } catch (IOException ex) {
+            throw new GeolocationException("Error querying IP database", ex);
+        }
+    }
+
+    @Override
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    @Override
+    public long getMemoryFootprint() {
+        return memoryFootprint;
+    }
+}
@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface LocationRepository extends JpaRepository<Location, String> {
@@ -19,6 +20,17 @@ public interface LocationRepository extends JpaRepository<Location, String> {
     @Query("UPDATE Location SET trashed = true WHERE code = ?1")
     public void trashByCode(String code);
 
+    @Query("SELECT l FROM Location l LEFT JOIN FETCH l.realtimeWeather WHERE l.code IN ?1 AND l.trashed = false")
+    public List<Location> findWithRealtimeWeatherByCodeIn(Collection<String> codes);
+
+    @Query("""
+            SELECT DISTINCT l FROM Location l
+            LEFT JOIN FETCH l.realtimeWeather
+            LEFT JOIN FETCH l.listHourlyWeather
+            WHERE l.code IN ?1 AND l.trashed = false
+            """)
+    public List<Location> findWithHourlyWeatherByCodeIn(Collection<String> codes);
+
     @Query("SELECT l FROM Location l WHERE l.countryCode = ?1 AND l.cityName = ?2 AND l.trashed = false")
     public Location findByCountryCodeAndCityName(String countryCode, String cityName);
 }
@@ -0,0 +1,87 @@
+package com.skyapi.weatherforecast.location.service;
+
+import com.skyapi.weatherforecast.common.Location;
+import com.skyapi.weatherforecast.exception.GeolocationException;
+import com.skyapi.weatherforecast.location.config.GeolocationProperties;
+import com.skyapi.weatherforecast.location.dto.GeolocationResultDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.HashSet;
+import java.util.Set;
+
+@Service
+@RequiredArgsConstructor
+public class GeolocationBatchService {
+
+    private final GeolocationService geolocationService;
+    private final LocationCodeIndex locationCodeIndex;
+    private final GeolocationProperties properties;
+
+    public Batch newBatch() {
+        return new Batch(properties.getBatch().getMaxAddresses());
+    }
+
+    /**
+     * Resolves the IP addresses of one request. Each distinct address is answered once, straight from the
+     * engine, so a batch leaves the address caches of single lookups as they were.
+     */
+    public class Batch {
+
+        private final int maxAddresses;
+
+        private final Set<String> seenAddresses = new HashSet<>();
+
+        private Batch(int maxAddresses) {
+            this.maxAddresses = maxAddresses;
+        }
+
+        public boolean isFull() {
+            return seenAddresses.size() >= maxAddresses;
+        }
+
+        public int getMaxAddresses() {
+            return maxAddresses;
+        }
+
+        public boolean contains(String ipAddress) {
+            return seenAddresses.contains(key(ipAddress));
+        }
+
+        /**
+         * @return the result for the address, or null if the address was already answered in this batch
+         */
+        public GeolocationResultDTO resolve(String ipAddress) {
+            String key = key(ipAddress);
+
+            if (!seenAddresses.add(key)) {
+                return null;
+            }
+
+            try {
+                Location location = geolocationService.getLocationUncached(key);
+
+                return GeolocationResultDTO.builder()
+                        .ip(key)
+                        .status(GeolocationResultDTO.STATUS_OK)
+                        .cityName(location.getCityName())
+                        .regionName(location.getRegionName())
+                        .countryCode(location.getCountryCode())
+                        .countryName(location.getCountryName())
+                        .locationCode(locationCodeIndex.findCode(location.getCountryCode(), location.getCityName()))
+                        .build();
+
+            } catch (GeolocationException ex) {
+                return GeolocationResultDTO.builder()
+                        .ip(key)
+                        .status(GeolocationResultDTO.STATUS_FAILED)
+                        .error(ex.getMessage())
+                        .build();
+            }
+        }
+
+        private String key(String ipAddress) {
+            return ipAddress == null ? "" : ipAddress.trim();
+        }
+    }
+}
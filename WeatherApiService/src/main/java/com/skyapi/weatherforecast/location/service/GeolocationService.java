@@ -1,16 +1,37 @@
 package com.skyapi.weatherforecast.location.service;
 
 import com.ip2location.IP2Location;
-import com.ip2location.IPResult;
+import com.skyapi.weatherforecast.accesslog.AccessLog;
+import com.skyapi.weatherforecast.cache.CacheStats;
+import com.skyapi.weatherforecast.cache.ExpiringCache;
 import com.skyapi.weatherforecast.common.Location;
 import com.skyapi.weatherforecast.exception.GeolocationException;
+import com.skyapi.weatherforecast.exception.LocationNotFoundException;
+import com.skyapi.weatherforecast.location.config.GeolocationProperties;
+import com.skyapi.weatherforecast.location.geolocation.GeolocationDatabaseStatus;
+import com.skyapi.weatherforecast.location.geolocation.GeolocationEngine;
+import com.skyapi.weatherforecast.location.geolocation.IndexedGeolocationEngine;
+import com.skyapi.weatherforecast.location.geolocation.LibraryGeolocationEngine;
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 @Transactional
@@ -18,38 +39,437 @@ public class GeolocationService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(GeolocationService.class);
 
+    private static final int HEADER_SIZE = 64;
+
     private String DBPath = "/ip2locdb/IP2LOCATION-LITE-DB3.BIN";
-    private IP2Location ipLocator = new IP2Location();
 
-    public GeolocationService() {
+    private final GeolocationProperties properties;
+
+    private final ExpiringCache<String, Location> locationCache;
+
+    // failed lookups by address, rethrown without building a new exception
+    private final ExpiringCache<String, Miss> negativeCache;
+
+    // replaced as a whole on reload, so readers never need a lock
+    private volatile LoadedDatabase database;
+
+    // only held to swap in a loaded database, never while loading it
+    private final Object reloadLock = new Object();
+
+    private final AtomicLong reloads = new AtomicLong();
+
+    private final LocationCodeIndex locationCodeIndex;
+
+    // location code per record of the indexed engine, derived from the engine and the location code index
+    private volatile LocationCodeJoin locationCodeJoin;
+
+    // rebuilds the join off the request threads, one rebuild at a time
+    private final ExecutorService locationCodeJoinBuilder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "location-code-join");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicBoolean locationCodeJoinBuilding = new AtomicBoolean();
+
+    private final AccessLog accessLog;
+
+    public GeolocationService(GeolocationProperties properties, LocationCodeIndex locationCodeIndex, AccessLog accessLog) {
+        this.properties = properties;
+        this.locationCodeIndex = locationCodeIndex;
+        this.accessLog = accessLog;
+
+        GeolocationProperties.Cache cache = properties.getCache();
+        this.locationCache = cache.isEnabled() ? new ExpiringCache<>(cache.getMaxSize(), cache.getTtl()) : null;
+
+        GeolocationProperties.NegativeCache negativeCache = properties.getNegativeCache();
+        this.negativeCache = negativeCache.isEnabled()
+                ? new ExpiringCache<>(negativeCache.getMaxSize(), negativeCache.getTtl())
+                : null;
+
         try {
-            InputStream inputStream = getClass().getResourceAsStream(DBPath);
-            byte[] data = inputStream.readAllBytes();
-            ipLocator.Open(data);
-            inputStream.close();
-        } catch (IOException ex) {
+            this.database = load();
+        } catch (IOException | RuntimeException ex) {
             LOGGER.error(ex.getMessage(), ex);
+            this.database = new LoadedDatabase(new LibraryGeolocationEngine(new IP2Location(), 0, 0),
+                    "none", 0, 0, LocalDateTime.now());
         }
     }
 
 
     public Location getLocation(String ipAddress) throws GeolocationException {
+        String normalizedIpAddress = normalize(ipAddress);
+
+        throwIfKnownMiss(normalizedIpAddress, false);
+
+        Location location = lookup(normalizedIpAddress);
+        accessLog.geolocation(normalizedIpAddress, location);
+
+        return copy(location);
+    }
+
+    /**
+     * Looks the address up in the engine without the address caches, so the mostly one-off addresses of a batch
+     * do not evict the entries of clients that keep calling. Nor are they access-logged: a single batch would
+     * overrun the log and drop the events of regular requests.
+     */
+    public Location getLocationUncached(String ipAddress) throws GeolocationException {
+        return copy(database.engine.lookup(normalize(ipAddress)));
+    }
+
+    /**
+     * Resolves the address straight to the code of the location we serve for it. With the indexed engine
+     * this is a single range search over a precomputed join of IP ranges and location codes.
+     *
+     * @throws LocationNotFoundException if we do not serve the city the address belongs to
+     */
+    public String getLocationCode(String ipAddress) throws GeolocationException, LocationNotFoundException {
+        String normalizedIpAddress = normalize(ipAddress);
+
+        throwIfKnownMiss(normalizedIpAddress, true);
+
+        Location location = null;
+        String locationCode = null;
+
+        if (database.engine instanceof IndexedGeolocationEngine indexedEngine) {
+            int recordIndex = lookupRecordIndex(indexedEngine, normalizedIpAddress);
+
+            if (recordIndex >= 0) {
+                location = indexedEngine.getRecord(recordIndex);
+                locationCode = findLocationCode(indexedEngine, recordIndex, location);
+            }
+        }
+
+        if (location == null) {
+            location = lookup(normalizedIpAddress);
+            locationCode = locationCodeIndex.findCode(location.getCountryCode(), location.getCityName());
+        }
+
+        accessLog.geolocation(normalizedIpAddress, location);
+
+        if (locationCode == null) {
+            throw unserved(normalizedIpAddress, location);
+        }
+
+        return locationCode;
+    }
+
+    /**
+     * Drops cached "city not served" results for cities that the location code index now resolves,
+     * so a newly added location is served right away.
+     */
+    public void invalidateServedMisses() {
+        if (negativeCache != null) {
+            negativeCache.invalidateValuesIf(miss -> miss.countryCode != null
+                    && locationCodeIndex.findCode(miss.countryCode, miss.cityName) != null);
+        }
+    }
+
+    public CacheStats getCacheStats() {
+        return locationCache != null ? locationCache.stats() : new CacheStats();
+    }
+
+    public CacheStats getNegativeCacheStats() {
+        return negativeCache != null ? negativeCache.stats() : new CacheStats();
+    }
+
+    public GeolocationDatabaseStatus getDatabaseStatus() {
+        LoadedDatabase current = database;
+
+        return GeolocationDatabaseStatus.builder()
+                .engine(properties.getEngine().name())
+                .source(current.source)
+                .entryCount(current.engine.getEntryCount())
+                .memoryFootprintBytes(current.engine.getMemoryFootprint())
+                .loadDurationMillis(current.loadDurationMillis)
+                .loadedAt(current.loadedAt)
+                .reloads(reloads.get())
+                .cache(getCacheStats())
+                .negativeCache(getNegativeCacheStats())
+                .build();
+    }
+
+    /**
+     * Builds a new engine from the configured database and swaps it in. Lookups keep using the
+     * previous engine until the new one is complete; if loading fails the previous engine stays active.
+     * The engine is built without holding a lock, only the swap and the cache invalidation are serialized.
+     */
+    public GeolocationDatabaseStatus reload() throws GeolocationException {
+        LoadedDatabase loaded;
+
+        try {
+            loaded = load();
+        } catch (IOException | RuntimeException ex) {
+            // the IP2Location library reports corrupt files with unchecked exceptions
+            throw new GeolocationException("Failed to reload IP database: " + ex.getMessage(), ex);
+        }
+
+        synchronized (reloadLock) {
+            database = loaded;
+
+            if (locationCache != null) {
+                locationCache.invalidateAll();
+            }
+
+            if (negativeCache != null) {
+                negativeCache.invalidateAll();
+            }
+
+            reloads.incrementAndGet();
+        }
+
+        GeolocationDatabaseStatus status = getDatabaseStatus();
+
+        LOGGER.info("Reloaded IP database {}: {} entries, {} bytes, loaded in {} ms", status.getSource(),
+                status.getEntryCount(), status.getMemoryFootprintBytes(), status.getLoadDurationMillis());
+
+        return status;
+    }
+
+    @Scheduled(initialDelayString = "${geolocation.database.watch-interval:PT1M}",
+            fixedDelayString = "${geolocation.database.watch-interval:PT1M}")
+    public void reloadIfModified() {
+        GeolocationProperties.Database databaseProperties = properties.getDatabase();
+
+        if (!databaseProperties.isWatch() || !hasPath(databaseProperties)) {
+            return;
+        }
+
+        try {
+            long lastModified = Files.getLastModifiedTime(Path.of(databaseProperties.getPath())).toMillis();
+
+            if (lastModified != database.lastModified) {
+                reload();
+            }
+        } catch (IOException | GeolocationException ex) {
+            LOGGER.error("Failed to reload IP database: " + ex.getMessage(), ex);
+        }
+    }
+
+    private LoadedDatabase load() throws IOException {
+        long startTime = System.nanoTime();
+
+        GeolocationProperties.Database databaseProperties = properties.getDatabase();
+        boolean indexed = properties.getEngine() == GeolocationProperties.Engine.INDEXED;
+
+        IP2Location ipLocator = new IP2Location();
+
+        String source;
+        long lastModified;
+        ByteBuffer content;
+        long heapBytes;
+
+        if (hasPath(databaseProperties) && Files.isReadable(Path.of(databaseProperties.getPath()))) {
+            Path file = Path.of(databaseProperties.getPath());
+            boolean memoryMapped = databaseProperties.isMemoryMapped();
 
+            source = file.toString();
+            lastModified = Files.getLastModifiedTime(file).toMillis();
+
+            // a memory-mapped file keeps the database off-heap and shares its pages between JVMs
+            ipLocator.Open(source, memoryMapped);
+
+            if (indexed && !memoryMapped) {
+                content = ByteBuffer.wrap(Files.readAllBytes(file));
+            } else {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    content = indexed
+                            ? channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                            : channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(HEADER_SIZE, channel.size()));
+                }
+            }
+
+            heapBytes = 0;
+        } else {
+            if (hasPath(databaseProperties)) {
+                LOGGER.warn("IP database {} is not readable, falling back to classpath {}",
+                        databaseProperties.getPath(), DBPath);
+            }
+
+            try (InputStream inputStream = getClass().getResourceAsStream(DBPath)) {
+                if (inputStream == null) {
+                    throw new IOException("IP database not found on classpath: " + DBPath);
+                }
+
+                byte[] data = inputStream.readAllBytes();
+                ipLocator.Open(data);
+
+                source = "classpath:" + DBPath;
+                lastModified = 0;
+                content = ByteBuffer.wrap(data);
+                heapBytes = data.length;
+            }
+        }
+
+        int entryCount = content.order(ByteOrder.LITTLE_ENDIAN).getInt(5) - 1;
+
+        GeolocationEngine engine = new LibraryGeolocationEngine(ipLocator, entryCount, heapBytes);
+
+        if (indexed) {
+            engine = IndexedGeolocationEngine.build(content, engine);
+        }
+
+        long loadDurationMillis = (System.nanoTime() - startTime) / 1_000_000;
+
+        LOGGER.info("Opened IP database {} with {} engine: {} entries in {} ms", source,
+                properties.getEngine(), engine.getEntryCount(), loadDurationMillis);
+
+        return new LoadedDatabase(engine, source, lastModified, loadDurationMillis, LocalDateTime.now());
+    }
+
+    private Location lookup(String normalizedIpAddress) throws GeolocationException {
+        Location location = locationCache != null ? locationCache.get(normalizedIpAddress) : null;
+
+        if (location == null) {
+            try {
+                location = database.engine.lookup(normalizedIpAddress);
+            } catch (GeolocationException ex) {
+                throw failed(normalizedIpAddress, ex);
+            }
+
+            if (locationCache != null) {
+                locationCache.put(normalizedIpAddress, location);
+            }
+        }
+
+        return location;
+    }
+
+    private int lookupRecordIndex(IndexedGeolocationEngine engine, String normalizedIpAddress) {
         try {
-            IPResult result = ipLocator.IPQuery(ipAddress);
+            return engine.lookupRecordIndex(normalizedIpAddress);
+        } catch (GeolocationException ex) {
+            throw failed(normalizedIpAddress, ex);
+        }
+    }
+
+    private void throwIfKnownMiss(String normalizedIpAddress, boolean includeUnserved) {
+        Miss miss = negativeCache != null ? negativeCache.get(normalizedIpAddress) : null;
+
+        if (miss == null) {
+            return;
+        }
+
+        if (miss.countryCode == null) {
+            throw miss.exception;
+        }
+
+        if (includeUnserved) {
+            locationCodeIndex.recordUnmatched(miss.countryCode, miss.cityName);
+            throw miss.exception;
+        }
+    }
 
-            if (!"OK".equals(result.getStatus())) {
-                throw new GeolocationException("Geolocation failed with status: " + result.getStatus());
+    private GeolocationException failed(String normalizedIpAddress, GeolocationException ex) {
+        // errors reading the database are not a property of the address, so they are not remembered
+        if (negativeCache == null || ex.getCause() != null) {
+            return ex;
+        }
+
+        GeolocationException cachedException = ex.withoutStackTrace();
+        negativeCache.put(normalizedIpAddress, new Miss(cachedException, null, null));
+
+        return cachedException;
+    }
+
+    private LocationNotFoundException unserved(String normalizedIpAddress, Location location) {
+        locationCodeIndex.recordUnmatched(location.getCountryCode(), location.getCityName());
+
+        LocationNotFoundException ex = new LocationNotFoundException(location.getCountryCode(), location.getCityName());
+
+        if (negativeCache == null) {
+            return ex;
+        }
+
+        LocationNotFoundException cachedException = ex.withoutStackTrace();
+        negativeCache.put(normalizedIpAddress, new Miss(cachedException, location.getCountryCode(), location.getCityName()));
+
+        return cachedException;
+    }
+
+    /**
+     * The code of the location served for a record of the indexed engine, from the join while it is current. After a
+     * location change or a reload the join is rebuilt in the background, and until it is the record is looked up in
+     * the location code index, so no request waits for the rebuild.
+     */
+    private String findLocationCode(IndexedGeolocationEngine engine, int recordIndex, Location record) {
+        LocationCodeJoin join = locationCodeJoin;
+
+        if (join != null && join.engine == engine && join.locationVersion == locationCodeIndex.getVersion()) {
+            return join.codes[recordIndex];
+        }
+
+        rebuildLocationCodeJoin(engine);
+
+        return locationCodeIndex.findCode(record.getCountryCode(), record.getCityName());
+    }
+
+    private void rebuildLocationCodeJoin(IndexedGeolocationEngine engine) {
+        if (!locationCodeJoinBuilding.compareAndSet(false, true)) {
+            return;
+        }
+
+        locationCodeJoinBuilder.execute(() -> {
+            try {
+                // read the version before the codes, so a concurrent location change leaves this join stale
+                long locationVersion = locationCodeIndex.getVersion();
+
+                locationCodeJoin = buildLocationCodeJoin(engine, locationVersion);
+            } catch (RuntimeException ex) {
+                LOGGER.error("Failed to join IP database records to location codes: " + ex.getMessage(), ex);
+            } finally {
+                locationCodeJoinBuilding.set(false);
             }
+        });
+    }
 
-            LOGGER.info(result.toString());
+    private LocationCodeJoin buildLocationCodeJoin(IndexedGeolocationEngine engine, long locationVersion) {
+        long startTime = System.nanoTime();
 
-            return new Location(result.getCity(), result.getRegion(), result.getCountryLong(), result.getCountryShort());
+        String[] codes = new String[engine.getRecordCount()];
+        int matched = 0;
 
-        } catch (IOException ex) {
-            throw new GeolocationException("Error querying IP database", ex);
+        for (int i = 0; i < codes.length; i++) {
+            Location record = engine.getRecord(i);
+            codes[i] = locationCodeIndex.findCode(record.getCountryCode(), record.getCityName());
+
+            if (codes[i] != null) {
+                matched++;
+            }
         }
 
+        LOGGER.info("Joined {} of {} IP database records to location codes in {} ms", matched, codes.length,
+                (System.nanoTime() - startTime) / 1_000_000);
+
+        return new LocationCodeJoin(engine, locationVersion, codes);
+    }
+
+    // cached locations and the records of the indexed engine are shared by every caller, so each one that gets a
+    // location out of this service gets its own copy
+    private static Location copy(Location location) {
+        return new Location(location.getCityName(), location.getRegionName(), location.getCountryName(),
+                location.getCountryCode());
+    }
+
+    private static boolean hasPath(GeolocationProperties.Database databaseProperties) {
+        return databaseProperties.getPath() != null && !databaseProperties.getPath().isBlank();
+    }
+
+    private static String normalize(String ipAddress) {
+        return ipAddress == null ? "" : ipAddress.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A failed lookup; country code and city name are only set when the address resolved to a city we do not serve.
+     */
+    private record Miss(RuntimeException exception, String countryCode, String cityName) {
+    }
+
+    private record LocationCodeJoin(IndexedGeolocationEngine engine, long locationVersion, String[] codes) {
+    }
+
+    private record LoadedDatabase(GeolocationEngine engine, String source, long lastModified,
+                                  long loadDurationMillis, LocalDateTime loadedAt) {
     }
 
 }
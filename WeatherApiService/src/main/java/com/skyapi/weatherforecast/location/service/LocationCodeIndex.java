@@ -0,0 +1,202 @@
+package com.skyapi.weatherforecast.location.service;
+
+import com.skyapi.weatherforecast.common.Location;
+import com.skyapi.weatherforecast.location.config.LocationMatchingProperties;
+import com.skyapi.weatherforecast.location.dto.UnmatchedLocationsDTO;
+import com.skyapi.weatherforecast.location.repository.LocationRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory mapping of (country code, city name) to the code of the untrashed location,
+ * so IP based requests resolve their location without a database round trip.
+ * Kept in sync by {@link LocationService}.
+ * <p>
+ * City names are matched ignoring case, accents and punctuation, after applying the configured aliases,
+ * so "São Paulo" from the IP database finds a location entered as "Sao Paulo".
+ */
+@Component
+public class LocationCodeIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LocationCodeIndex.class);
+
+    private final LocationRepository locationRepo;
+
+    private final Map<String, String> cityAliases = new HashMap<>();
+
+    private final int maxUnmatchedNames;
+
+    // replaced as a whole on rebuild, so readers never see a partly built index
+    private volatile Map<Key, String> codes = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded;
+
+    // bumped on every change, so structures derived from the index know when to rebuild
+    private final AtomicLong version = new AtomicLong();
+
+    private final Map<Key, LongAdder> unmatched = new ConcurrentHashMap<>();
+    private final LongAdder totalUnmatched = new LongAdder();
+
+    public LocationCodeIndex(LocationRepository locationRepo, LocationMatchingProperties properties) {
+        this.locationRepo = locationRepo;
+        this.maxUnmatchedNames = properties.getMaxUnmatchedNames();
+
+        properties.getCityAliases().forEach((alias, cityName) ->
+                cityAliases.put(normalizeName(alias), normalizeName(cityName)));
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            rebuild();
+        } catch (DataAccessException ex) {
+            // the index is built on first use instead
+            LOGGER.error("Failed to build location code index: " + ex.getMessage(), ex);
+        }
+    }
+
+    public synchronized void rebuild() {
+        List<Location> locations = locationRepo.findUntrashed();
+
+        Map<Key, String> rebuilt = new ConcurrentHashMap<>(locations.size() * 2);
+
+        for (Location location : locations) {
+            if (!location.isTrashed()) {
+                rebuilt.put(key(location.getCountryCode(), location.getCityName()), location.getCode());
+            }
+        }
+
+        codes = rebuilt;
+        loaded = true;
+        version.incrementAndGet();
+
+        LOGGER.info("Built location code index with {} entries", rebuilt.size());
+    }
+
+    /**
+     * @return the location code, or null if no untrashed location has this country code and city name
+     */
+    public String findCode(String countryCode, String cityName) {
+        if (!loaded) {
+            rebuild();
+        }
+
+        return codes.get(key(countryCode, cityName));
+    }
+
+    /**
+     * Counts a name from the IP database that none of our locations matched.
+     */
+    public void recordUnmatched(String countryCode, String cityName) {
+        totalUnmatched.increment();
+
+        Key key = new Key(countryCode, cityName);
+        LongAdder counter = unmatched.get(key);
+
+        if (counter == null) {
+            if (unmatched.size() >= maxUnmatchedNames) {
+                return;
+            }
+
+            counter = unmatched.computeIfAbsent(key, k -> new LongAdder());
+        }
+
+        counter.increment();
+    }
+
+    public UnmatchedLocationsDTO getUnmatched() {
+        List<UnmatchedLocationsDTO.UnmatchedName> names = unmatched.entrySet().stream()
+                .map(entry -> new UnmatchedLocationsDTO.UnmatchedName(entry.getKey().countryCode(),
+                        entry.getKey().cityName(), entry.getValue().sum()))
+                .sorted(Comparator.comparingLong(UnmatchedLocationsDTO.UnmatchedName::getCount).reversed())
+                .toList();
+
+        return UnmatchedLocationsDTO.builder()
+                .totalUnmatched(totalUnmatched.sum())
+                .distinctNames(names.size())
+                .names(names)
+                .build();
+    }
+
+    // serialized with rebuild, so a change made while it runs is applied to the new index rather than lost
+    public synchronized void put(Location location) {
+        if (location.isTrashed()) {
+            remove(location);
+            return;
+        }
+
+        codes.put(key(location.getCountryCode(), location.getCityName()), location.getCode());
+        version.incrementAndGet();
+    }
+
+    public synchronized void remove(Location location) {
+        codes.remove(key(location.getCountryCode(), location.getCityName()), location.getCode());
+        version.incrementAndGet();
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public int size() {
+        return codes.size();
+    }
+
+    private Key key(String countryCode, String cityName) {
+        String normalizedCityName = normalizeName(cityName);
+
+        return new Key(countryCode == null ? "" : countryCode.trim().toUpperCase(Locale.ROOT),
+                cityAliases.getOrDefault(normalizedCityName, normalizedCityName));
+    }
+
+    /**
+     * Folds a city name to lower case ASCII letters and digits separated by single spaces:
+     * accents are stripped and any run of whitespace or punctuation becomes one space.
+     */
+    static String normalizeName(String name) {
+        if (name == null) {
+            return "";
+        }
+
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFKD);
+        StringBuilder builder = new StringBuilder(decomposed.length());
+        boolean pendingSpace = false;
+
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && builder.length() > 0) {
+                    builder.append(' ');
+                }
+
+                builder.append(Character.toLowerCase(c));
+                pendingSpace = false;
+            } else {
+                pendingSpace = true;
+            }
+        }
+
+        return builder.toString();
+    }
+
+    private record Key(String countryCode, String cityName) {
+    }
+}
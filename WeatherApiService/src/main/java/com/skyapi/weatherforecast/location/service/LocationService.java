@@ -2,10 +2,14 @@ package com.skyapi.weatherforecast.location.service;
 
 import com.skyapi.weatherforecast.common.Location;
 import com.skyapi.weatherforecast.exception.LocationNotFoundException;
+import com.skyapi.weatherforecast.hourly.service.HourlyWeatherService;
 import com.skyapi.weatherforecast.location.repository.LocationRepository;
+import com.skyapi.weatherforecast.realtime.service.RealtimeWeatherService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 
@@ -16,8 +20,23 @@ public class LocationService {
 
     private final LocationRepository repo;
 
+    private final LocationCodeIndex locationCodeIndex;
+
+    private final GeolocationService geolocationService;
+
+    private final RealtimeWeatherService realtimeWeatherService;
+
+    private final HourlyWeatherService hourlyWeatherService;
+
     public Location add(Location location) {
-        return repo.save(location);
+        Location savedLocation = repo.save(location);
+
+        afterCommit(() -> {
+            locationCodeIndex.put(savedLocation);
+            geolocationService.invalidateServedMisses();
+        });
+
+        return savedLocation;
     }
 
     public List<Location> list() {
@@ -43,13 +62,30 @@ public class LocationService {
             throw new LocationNotFoundException(code);
         }
 
+        // the key the location is indexed under until the change is committed
+        Location previous = Location.builder()
+                .code(code)
+                .countryCode(locationInDB.getCountryCode())
+                .cityName(locationInDB.getCityName())
+                .build();
+
         locationInDB.setCityName(locationInRequest.getCityName());
         locationInDB.setRegionName(locationInRequest.getRegionName());
         locationInDB.setCountryCode(locationInRequest.getCountryCode());
         locationInDB.setCountryName(locationInRequest.getCountryName());
         locationInDB.setEnabled(locationInRequest.isEnabled());
 
-        return repo.save(locationInDB);
+        Location savedLocation = repo.save(locationInDB);
+
+        afterCommit(() -> {
+            locationCodeIndex.remove(previous);
+            locationCodeIndex.put(savedLocation);
+            geolocationService.invalidateServedMisses();
+            realtimeWeatherService.evict(code);
+            hourlyWeatherService.evict(code);
+        });
+
+        return savedLocation;
     }
 
     public void delete(String code) {
@@ -60,5 +96,28 @@ public class LocationService {
         }
 
         repo.trashByCode(code);
+
+        afterCommit(() -> {
+            locationCodeIndex.remove(location);
+            realtimeWeatherService.evict(code);
+            realtimeWeatherService.deleteHistory(code);
+            hourlyWeatherService.evict(code);
+        });
+    }
+
+    // the index and caches must not pick up a change before it is committed, or keep one that was rolled back:
+    // a read in between would load the old row and cache it again
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 }
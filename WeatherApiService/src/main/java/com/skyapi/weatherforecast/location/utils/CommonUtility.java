@@ -2,11 +2,7 @@ package com.skyapi.weatherforecast.location.utils;
 
 import jakarta.servlet.http.HttpServletRequest;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 public class CommonUtility {
-    private static Logger LOGGER = LoggerFactory.getLogger(CommonUtility.class);
 
     public static String getIPAddress(HttpServletRequest request) {
         String ip = request.getHeader("X-FORWARDED-FOR");
@@ -15,8 +11,26 @@ public class CommonUtility {
             ip = request.getRemoteAddr();
         }
 
-        LOGGER.info("Client's IP Address: " + ip);
-
         return ip;
     }
+
+    /**
+     * @return a quoted strong entity tag for a resource of the location, e.g. "NYC_USA-18e4c1f2a00"
+     */
+    public static String strongETag(String locationCode, long version, String... qualifiers) {
+        StringBuilder builder = new StringBuilder("\"");
+
+        // entity tags must not contain quotes, spaces or control characters
+        locationCode.chars()
+                .filter(c -> Character.isLetterOrDigit(c) || c == '_' || c == '-')
+                .forEach(c -> builder.append((char) c));
+
+        builder.append('-').append(Long.toHexString(version));
+
+        for (String qualifier : qualifiers) {
+            builder.append('-').append(qualifier);
+        }
+
+        return builder.append('"').toString();
+    }
 }
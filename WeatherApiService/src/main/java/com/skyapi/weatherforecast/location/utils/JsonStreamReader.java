@@ -0,0 +1,87 @@
+package com.skyapi.weatherforecast.location.utils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads a request body item by item, either as a JSON array or as newline-delimited JSON (NDJSON),
+ * so large bodies are never deserialized into memory as a whole.
+ */
+public class JsonStreamReader {
+
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    public interface ItemHandler<T> {
+
+        /**
+         * @param position line number for NDJSON, zero-based index for a JSON array
+         * @param item     the parsed item, or null if the line could not be parsed
+         * @param error    the parse error of the line, or null
+         */
+        void handle(long position, T item, String error) throws IOException;
+    }
+
+    public static boolean isNdjson(String contentType) {
+        return contentType != null && contentType.startsWith(APPLICATION_NDJSON);
+    }
+
+    public static <T> void read(ObjectMapper objectMapper, InputStream inputStream, String contentType,
+                                Class<T> type, ItemHandler<T> handler) throws IOException {
+        if (isNdjson(contentType)) {
+            readLines(objectMapper, inputStream, type, handler);
+        } else {
+            readArray(objectMapper, inputStream, type, handler);
+        }
+    }
+
+    private static <T> void readArray(ObjectMapper objectMapper, InputStream inputStream, Class<T> type,
+                                      ItemHandler<T> handler) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonProcessingException("Request body must be a JSON array") {};
+            }
+
+            long index = 0;
+
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                handler.handle(index++, objectMapper.readValue(parser, type), null);
+            }
+        }
+    }
+
+    private static <T> void readLines(ObjectMapper objectMapper, InputStream inputStream, Class<T> type,
+                                      ItemHandler<T> handler) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+
+        long lineNumber = 0;
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+
+            if (line.isBlank()) {
+                continue;
+            }
+
+            // each line gets its own parser so one malformed line does not end the stream
+            T item;
+            try (JsonParser parser = objectMapper.getFactory().createParser(line)) {
+                item = objectMapper.readValue(parser, type);
+            } catch (JsonProcessingException ex) {
+                handler.handle(lineNumber, null, ex.getOriginalMessage());
+                continue;
+            }
+
+            handler.handle(lineNumber, item, null);
+        }
+    }
+}
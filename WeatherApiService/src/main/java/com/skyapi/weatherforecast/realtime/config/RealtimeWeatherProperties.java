@@ -0,0 +1,146 @@
+package com.skyapi.weatherforecast.realtime.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "realtime")
+@Data
+public class RealtimeWeatherProperties {
+
+    /**
+     * Write an update with one native upsert statement instead of loading the location and saving the entity:
+     * MERGE on H2, INSERT ... ON DUPLICATE KEY UPDATE on any other database, which must accept MySQL syntax.
+     */
+    private boolean nativeUpsert = false;
+
+    private Cache cache = new Cache();
+
+    private Bulk bulk = new Bulk();
+
+    /**
+     * Upper bound on the location codes of one multi-location read.
+     */
+    private int maxReadCodes = 1_000;
+
+    private Events events = new Events();
+
+    private WriteBehind writeBehind = new WriteBehind();
+
+    private History history = new History();
+
+    @Data
+    public static class Cache {
+
+        private boolean enabled = true;
+        private int maxSize = 10_000;
+
+        /**
+         * Upper bound on how long an entry is served; updates through the API replace entries immediately.
+         */
+        private Duration ttl = Duration.ofMinutes(30);
+    }
+
+    @Data
+    public static class Bulk {
+
+        /**
+         * Upper bound on the items accepted by one bulk request.
+         */
+        private int maxItems = 50_000;
+
+        /**
+         * Items resolved with one query and written in one transaction.
+         */
+        private int chunkSize = 1_000;
+
+        /**
+         * Line errors listed in the result of a streaming ingest; further errors are only counted.
+         */
+        private int maxReportedErrors = 1_000;
+    }
+
+    /**
+     * Server-sent events pushed to subscribers when the weather of a location changes.
+     * <p>
+     * Every subscriber keeps a connection open. Deployments expecting more subscribers than the connection limit
+     * of the server (8192 for Tomcat) raise {@code server.tomcat.max-connections} themselves.
+     */
+    @Data
+    public static class Events {
+
+        /**
+         * Upper bound on the location codes of one subscription.
+         */
+        private int maxCodes = 100;
+
+        /**
+         * Events buffered for a subscriber; a subscriber that falls this far behind is disconnected.
+         */
+        private int queueCapacity = 32;
+
+        /**
+         * Threads writing events to subscribers. Publishing only enqueues, so it never waits for them.
+         */
+        private int dispatcherThreads = 4;
+
+        /**
+         * How long a write to a subscriber may block before the subscriber is disconnected; also the interval
+         * at which writes are checked, bound through the scheduler.
+         */
+        private Duration writeTimeout = Duration.ofSeconds(10);
+
+        /**
+         * How long a subscription stays open; clients are expected to reconnect.
+         */
+        private Duration timeout = Duration.ofMinutes(30);
+
+        /**
+         * Interval of the comments sent to detect closed connections; bound through the scheduler.
+         */
+        private Duration heartbeatInterval = Duration.ofSeconds(30);
+    }
+
+    /**
+     * Accept updates into memory and persist them in the background. Only the latest update of a location
+     * is written, at the price of losing updates made since the last flush if the process dies.
+     */
+    @Data
+    public static class WriteBehind {
+
+        private boolean enabled = false;
+
+        /**
+         * Delay between background flushes; bound through the scheduler.
+         */
+        private Duration flushInterval = Duration.ofSeconds(1);
+
+        /**
+         * Locations written per transaction.
+         */
+        private int batchSize = 1_000;
+    }
+
+    /**
+     * Recent weather of every location, kept in memory only and lost on restart.
+     */
+    @Data
+    public static class History {
+
+        private boolean enabled = true;
+
+        /**
+         * How far back samples are kept.
+         */
+        private Duration retention = Duration.ofHours(24);
+
+        /**
+         * Interval covered by one sample, so a location holds retention / resolution samples however often it is
+         * updated.
+         */
+        private Duration resolution = Duration.ofMinutes(5);
+    }
+}
@@ -1,21 +1,36 @@
 package com.skyapi.weatherforecast.realtime.controller;
 
-import com.skyapi.weatherforecast.common.Location;
+import com.skyapi.weatherforecast.accesslog.AccessLog;
 import com.skyapi.weatherforecast.common.RealtimeWeather;
+import com.skyapi.weatherforecast.exception.BadRequestException;
 import com.skyapi.weatherforecast.exception.GeolocationException;
 import com.skyapi.weatherforecast.exception.LocationNotFoundException;
+import com.skyapi.weatherforecast.realtime.dto.RealtimeWeatherBulkItemDTO;
+import com.skyapi.weatherforecast.realtime.dto.RealtimeWeatherBulkResultDTO;
 import com.skyapi.weatherforecast.realtime.dto.RealtimeWeatherDTO;
+import com.skyapi.weatherforecast.realtime.dto.RealtimeWeatherHistoryDTO;
+import com.skyapi.weatherforecast.realtime.dto.RealtimeWeatherIngestResultDTO;
+import com.skyapi.weatherforecast.realtime.dto.RealtimeWeatherStatsDTO;
 import com.skyapi.weatherforecast.location.service.GeolocationService;
+import com.skyapi.weatherforecast.realtime.service.RealtimeWeatherBulkService;
 import com.skyapi.weatherforecast.realtime.service.RealtimeWeatherService;
 import com.skyapi.weatherforecast.location.utils.CommonUtility;
+import com.skyapi.weatherforecast.location.utils.JsonStreamReader;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
 
 @RestController
 @RequestMapping("/v1/realtime")
@@ -26,24 +41,86 @@ public class RealtimeWeatherApiController {
 
     private final GeolocationService locationService;
     private final RealtimeWeatherService realtimeWeatherService;
+    private final RealtimeWeatherBulkService realtimeWeatherBulkService;
 
     private final ModelMapper modelMapper;
 
+    private final AccessLog accessLog;
+
     @GetMapping
-    public ResponseEntity<?> getRealtimeWeatherByIPAddress(HttpServletRequest request) {
+    public ResponseEntity<?> getRealtimeWeatherByIPAddress(HttpServletRequest request, WebRequest webRequest) {
         String ipAddress = CommonUtility.getIPAddress(request);
+        accessLog.clientAddress(ipAddress);
+
+        String locationCode = locationService.getLocationCode(ipAddress);
+
+        String eTag = realtimeWeatherService.getETag(locationCode);
+
+        if (eTag != null && webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+
+        RealtimeWeather realtimeWeather = realtimeWeatherService.getByLocationCode(locationCode);
+
+        return ResponseEntity.ok().eTag(eTag).body(entity2DTO(realtimeWeather));
+    }
+
+    /**
+     * The weather of many locations in one response. Codes without weather are listed under
+     * {@code not_found} rather than failing the whole request.
+     */
+    @GetMapping(params = "codes")
+    public ResponseEntity<byte[]> getRealtimeWeatherByLocationCodes(@RequestParam("codes") List<String> locationCodes)
+            throws BadRequestException {
+
+        byte[] json = realtimeWeatherService.getJsonByLocationCodes(locationCodes);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(json.length)
+                .body(json);
+    }
 
-        Location locationFromIP = locationService.getLocation(ipAddress);
-        RealtimeWeather realtimeWeather = realtimeWeatherService.getByLocation(locationFromIP);
+    @GetMapping("/stats")
+    public ResponseEntity<RealtimeWeatherStatsDTO> getStats() {
+        return ResponseEntity.ok(RealtimeWeatherStatsDTO.builder()
+                .cache(realtimeWeatherService.getCacheStats())
+                .events(realtimeWeatherService.getEventStats())
+                .writeBehind(realtimeWeatherService.getWriteBehindStats())
+                .build());
+    }
 
-        return ResponseEntity.ok(entity2DTO(realtimeWeather));
+    /**
+     * Server-sent events with the weather of the given locations: first their current weather, then every change.
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestParam("codes") List<String> locationCodes) throws BadRequestException {
+        return realtimeWeatherService.subscribe(locationCodes);
     }
 
     @GetMapping("/{locationCode}")
-    public ResponseEntity<?> getRealtimeWeatherByLocationCode(@PathVariable("locationCode") String locationCode) {
-        RealtimeWeather realtimeWeather = realtimeWeatherService.getByLocationCode(locationCode);
+    public ResponseEntity<byte[]> getRealtimeWeatherByLocationCode(@PathVariable("locationCode") String locationCode,
+                                                                   WebRequest webRequest) {
+        String eTag = realtimeWeatherService.getETag(locationCode);
+
+        if (eTag != null && webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+
+        byte[] json = realtimeWeatherService.getJsonByLocationCode(locationCode);
+
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(json.length)
+                .body(json);
+    }
+
+    @GetMapping("/{locationCode}/history")
+    public ResponseEntity<RealtimeWeatherHistoryDTO> getRealtimeWeatherHistory(
+            @PathVariable("locationCode") String locationCode) {
 
-        return ResponseEntity.ok(entity2DTO(realtimeWeather));
+        return ResponseEntity.ok(realtimeWeatherService.getHistory(locationCode));
     }
 
     @PutMapping("/{locationCode}")
@@ -57,6 +134,28 @@ public class RealtimeWeatherApiController {
         return ResponseEntity.ok(entity2DTO(updatedRealtimeWeather));
     }
 
+    /**
+     * Updates the realtime weather of many locations. Every item gets its own result, so one
+     * invalid item or unknown location does not reject the others.
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<RealtimeWeatherBulkResultDTO> bulkUpdateRealtimeWeather(
+            @RequestBody List<RealtimeWeatherBulkItemDTO> items) throws BadRequestException {
+
+        return ResponseEntity.ok(realtimeWeatherBulkService.update(items));
+    }
+
+    /**
+     * Streams an NDJSON feed of updates into the database without holding the body in memory.
+     * Errors are reported by line number.
+     */
+    @PostMapping(value = "/bulk", consumes = JsonStreamReader.APPLICATION_NDJSON)
+    public ResponseEntity<RealtimeWeatherIngestResultDTO> ingestRealtimeWeather(HttpServletRequest request)
+            throws IOException {
+
+        return ResponseEntity.ok(realtimeWeatherBulkService.ingest(request.getInputStream()));
+    }
+
     private RealtimeWeatherDTO entity2DTO(RealtimeWeather realtimeWeather) {
         return modelMapper.map(realtimeWeather, RealtimeWeatherDTO.class);
     }
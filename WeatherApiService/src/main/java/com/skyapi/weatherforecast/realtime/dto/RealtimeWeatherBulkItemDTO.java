@@ -0,0 +1,38 @@
+package com.skyapi.weatherforecast.realtime.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.validator.constraints.Length;
+import org.hibernate.validator.constraints.Range;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RealtimeWeatherBulkItemDTO {
+
+    @JsonProperty("location_code")
+    @NotBlank(message = "Location code must not be empty")
+    private String locationCode;
+
+    @Range(min = -50, max = 50, message = "Temperature must be in the range of -50 to 50 Celsius degree")
+    private int temperature;
+
+    @Range(min = 0, max = 100, message = "Humidity must be in the range of 0 to 100 percentage")
+    private int humidity;
+
+    @Range(min = 0, max = 100, message = "Precipitation must be in the range of 0 to 100 percentage")
+    private int precipitation;
+
+    @JsonProperty("wind_speed")
+    @Range(min = 0, max = 200, message = "Wind speed must be in the range of 0 to 200 km/h")
+    private int windSpeed;
+
+    @NotBlank(message = "Status must not be empty")
+    @Length(min = 3, max = 50, message = "Status must be in between 3-50 characters")
+    private String status;
+}
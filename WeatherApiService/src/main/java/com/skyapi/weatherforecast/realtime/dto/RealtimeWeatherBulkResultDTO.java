@@ -0,0 +1,48 @@
+package com.skyapi.weatherforecast.realtime.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RealtimeWeatherBulkResultDTO {
+
+    public static final String STATUS_CREATED = "CREATED";
+    public static final String STATUS_UPDATED = "UPDATED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private int total;
+    private int created;
+    private int updated;
+    private int failed;
+
+    @JsonProperty("elapsed_millis")
+    private long elapsedMillis;
+
+    @JsonProperty("updates_per_second")
+    private double updatesPerSecond;
+
+    private List<ItemResult> results;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class ItemResult {
+
+        @JsonProperty("location_code")
+        private String locationCode;
+
+        private String status;
+
+        private String error;
+    }
+}
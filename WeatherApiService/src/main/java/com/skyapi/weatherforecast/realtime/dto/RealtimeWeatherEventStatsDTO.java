@@ -0,0 +1,31 @@
+package com.skyapi.weatherforecast.realtime.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RealtimeWeatherEventStatsDTO {
+
+    private int subscribers;
+
+    @JsonProperty("subscribed_locations")
+    private int subscribedLocations;
+
+    @JsonProperty("queue_capacity")
+    private int queueCapacity;
+
+    private long published;
+
+    private long delivered;
+
+    private long evicted;
+
+    @JsonProperty("timed_out")
+    private long timedOut;
+}
@@ -0,0 +1,52 @@
+package com.skyapi.weatherforecast.realtime.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RealtimeWeatherHistoryDTO {
+
+    @JsonProperty("location_code")
+    private String locationCode;
+
+    /**
+     * Seconds covered by one sample; later updates within the same interval replace its values.
+     */
+    @JsonProperty("resolution_seconds")
+    private long resolutionSeconds;
+
+    /**
+     * Oldest first.
+     */
+    private List<Sample> samples;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Sample {
+
+        @JsonProperty("last_updated")
+        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss'Z'")
+        private LocalDateTime lastUpdated;
+
+        private int temperature;
+
+        private int humidity;
+
+        private int precipitation;
+
+        @JsonProperty("wind_speed")
+        private int windSpeed;
+    }
+}
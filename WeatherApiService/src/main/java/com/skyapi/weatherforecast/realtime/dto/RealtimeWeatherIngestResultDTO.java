@@ -0,0 +1,53 @@
+package com.skyapi.weatherforecast.realtime.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RealtimeWeatherIngestResultDTO {
+
+    private long lines;
+    private long created;
+    private long updated;
+
+    /**
+     * Records replaced by a later line for the same location before they were written.
+     */
+    private long superseded;
+
+    private long failed;
+
+    @JsonProperty("elapsed_millis")
+    private long elapsedMillis;
+
+    @JsonProperty("updates_per_second")
+    private double updatesPerSecond;
+
+    private List<LineError> errors;
+
+    @JsonProperty("errors_truncated")
+    private boolean errorsTruncated;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class LineError {
+
+        private long line;
+
+        @JsonProperty("location_code")
+        private String locationCode;
+
+        private String error;
+    }
+}
@@ -0,0 +1,22 @@
+package com.skyapi.weatherforecast.realtime.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.skyapi.weatherforecast.cache.CacheStats;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RealtimeWeatherStatsDTO {
+
+    private CacheStats cache;
+
+    private RealtimeWeatherEventStatsDTO events;
+
+    @JsonProperty("write_behind")
+    private RealtimeWeatherWriteBehindStatsDTO writeBehind;
+}
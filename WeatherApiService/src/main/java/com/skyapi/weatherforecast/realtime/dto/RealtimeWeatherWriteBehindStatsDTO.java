@@ -0,0 +1,37 @@
+package com.skyapi.weatherforecast.realtime.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RealtimeWeatherWriteBehindStatsDTO {
+
+    private boolean enabled;
+
+    private int pending;
+
+    private long accepted;
+
+    /**
+     * Updates replaced by a later update of the same location before they were written.
+     */
+    private long coalesced;
+
+    private long written;
+
+    /**
+     * Updates of locations that were deleted before the flush.
+     */
+    private long dropped;
+
+    private long flushes;
+
+    @JsonProperty("failed_flushes")
+    private long failedFlushes;
+}
@@ -4,11 +4,21 @@ import com.skyapi.weatherforecast.common.RealtimeWeather;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
-public interface RealtimeWeatherRepository extends JpaRepository<RealtimeWeather, String> {
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface RealtimeWeatherRepository extends JpaRepository<RealtimeWeather, String>, RealtimeWeatherRepositoryCustom {
 
     @Query("SELECT r FROM RealtimeWeather r WHERE r.location.countryCode = ?1 AND r.location.cityName = ?2")
     public RealtimeWeather findByCountryCodeAndCity(String countryCode, String city);
 
     @Query("SELECT r FROM RealtimeWeather r WHERE r.locationCode = ?1 AND r.location.trashed = false")
     public RealtimeWeather findByLocationCode(String locationCode);
+
+    @Query("SELECT r FROM RealtimeWeather r JOIN FETCH r.location l WHERE r.locationCode IN ?1 AND l.trashed = false")
+    public List<RealtimeWeather> findByLocationCodeIn(Collection<String> locationCodes);
+
+    @Query("SELECT r.lastUpdated FROM RealtimeWeather r WHERE r.locationCode = ?1 AND r.location.trashed = false")
+    public LocalDateTime findLastUpdatedByLocationCode(String locationCode);
 }
@@ -0,0 +1,15 @@
+package com.skyapi.weatherforecast.realtime.repository;
+
+import com.skyapi.weatherforecast.common.RealtimeWeather;
+
+public interface RealtimeWeatherRepositoryCustom {
+
+    /**
+     * Inserts or overwrites the weather of an untrashed location with a single statement, without loading
+     * the location or the current weather.
+     *
+     * @param realtimeWeather the weather to write, with its location code and update time set
+     * @return 0 if there is no untrashed location with the code, otherwise the count of affected rows
+     */
+    public int upsert(RealtimeWeather realtimeWeather);
+}
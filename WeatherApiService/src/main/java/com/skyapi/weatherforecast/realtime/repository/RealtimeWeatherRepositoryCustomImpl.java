@@ -0,0 +1,71 @@
+package com.skyapi.weatherforecast.realtime.repository;
+
+import com.skyapi.weatherforecast.common.RealtimeWeather;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+public class RealtimeWeatherRepositoryCustomImpl implements RealtimeWeatherRepositoryCustom {
+
+    // H2 does not accept ON DUPLICATE KEY UPDATE after INSERT ... SELECT, even in MySQL mode
+    private static final String MERGE = """
+            MERGE INTO realtime_weather r
+            USING (SELECT code FROM locations WHERE code = :locationCode AND trashed = false) l
+            ON r.location_code = l.code
+            WHEN MATCHED THEN UPDATE SET
+                temperature = :temperature,
+                humidity = :humidity,
+                precipitation = :precipitation,
+                wind_speed = :windSpeed,
+                status = :status,
+                last_updated = :lastUpdated
+            WHEN NOT MATCHED THEN INSERT
+                (location_code, temperature, humidity, precipitation, wind_speed, status, last_updated)
+                VALUES (l.code, :temperature, :humidity, :precipitation, :windSpeed, :status, :lastUpdated)
+            """;
+
+    private static final String INSERT_ON_DUPLICATE_KEY_UPDATE = """
+            INSERT INTO realtime_weather
+                (location_code, temperature, humidity, precipitation, wind_speed, status, last_updated)
+            SELECT code, :temperature, :humidity, :precipitation, :windSpeed, :status, :lastUpdated
+            FROM locations
+            WHERE code = :locationCode AND trashed = false
+            ON DUPLICATE KEY UPDATE
+                temperature = :temperature,
+                humidity = :humidity,
+                precipitation = :precipitation,
+                wind_speed = :windSpeed,
+                status = :status,
+                last_updated = :lastUpdated
+            """;
+
+    private final EntityManager entityManager;
+
+    private final String upsertStatement;
+
+    public RealtimeWeatherRepositoryCustomImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+
+        SessionFactoryImplementor sessionFactory = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class);
+
+        this.upsertStatement = sessionFactory.getJdbcServices().getDialect() instanceof H2Dialect
+                ? MERGE
+                : INSERT_ON_DUPLICATE_KEY_UPDATE;
+    }
+
+    @Override
+    @Transactional
+    public int upsert(RealtimeWeather realtimeWeather) {
+        return entityManager.createNativeQuery(upsertStatement)
+                .setParameter("locationCode", realtimeWeather.getLocationCode())
+                .setParameter("temperature", realtimeWeather.getTemperature())
+                .setParameter("humidity", realtimeWeather.getHumidity())
+                .setParameter("precipitation", realtimeWeather.getPrecipitation())
+                .setParameter("windSpeed", realtimeWeather.getWindSpeed())
+                .setParameter("status", realtimeWeather.getStatus())
+                .setParameter("lastUpdated", realtimeWeather.getLastUpdated())
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,289 @@
+package com.skyapi.weatherforecast.realtime.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skyapi.weatherforecast.exception.BadRequestException;
+import com.skyapi.weatherforecast.location.utils.JsonStreamReader;
+import com.skyapi.weatherforecast.realtime.config.RealtimeWeatherProperties;
+import com.skyapi.weatherforecast.realtime.dto.RealtimeWeatherBulkItemDTO;
+import com.skyapi.weatherforecast.realtime.dto.RealtimeWeatherBulkResultDTO;
+import com.skyapi.weatherforecast.realtime.dto.RealtimeWeatherBulkResultDTO.ItemResult;
+import com.skyapi.weatherforecast.realtime.dto.RealtimeWeatherIngestResultDTO;
+import com.skyapi.weatherforecast.realtime.dto.RealtimeWeatherIngestResultDTO.LineError;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Applies realtime weather for many locations at once. Items are validated up front, then written
+ * chunk by chunk through {@link RealtimeWeatherBulkWriter}; an invalid item or an unknown location
+ * only fails its own result, and a chunk that cannot be written only fails the items of that chunk.
+ * <p>
+ * NDJSON feeds are ingested as a stream instead: lines are parsed and validated one at a time and
+ * written whenever a chunk is full, so memory use does not grow with the size of the body.
+ */
+@Service
+public class RealtimeWeatherBulkService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RealtimeWeatherBulkService.class);
+
+    private static final String WRITE_FAILED = "Failed to write realtime weather, please retry";
+
+    private final RealtimeWeatherBulkWriter bulkWriter;
+
+    private final RealtimeWeatherService realtimeWeatherService;
+
+    private final Validator validator;
+
+    private final ObjectMapper objectMapper;
+
+    private final int maxItems;
+
+    private final int chunkSize;
+
+    private final int maxReportedErrors;
+
+    public RealtimeWeatherBulkService(RealtimeWeatherBulkWriter bulkWriter, RealtimeWeatherService realtimeWeatherService,
+                                      Validator validator, ObjectMapper objectMapper,
+                                      RealtimeWeatherProperties properties) {
+        this.bulkWriter = bulkWriter;
+        this.realtimeWeatherService = realtimeWeatherService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.maxItems = properties.getBulk().getMaxItems();
+        this.chunkSize = Math.max(1, properties.getBulk().getChunkSize());
+        this.maxReportedErrors = properties.getBulk().getMaxReportedErrors();
+    }
+
+    public RealtimeWeatherBulkResultDTO update(List<RealtimeWeatherBulkItemDTO> items) throws BadRequestException {
+        if (items.isEmpty()) {
+            throw new BadRequestException("Realtime weather data cannot be empty");
+        }
+
+        if (items.size() > maxItems) {
+            throw new BadRequestException("Bulk update is limited to " + maxItems + " items");
+        }
+
+        long start = System.nanoTime();
+
+        ItemResult[] results = new ItemResult[items.size()];
+        List<RealtimeWeatherBulkItemDTO> valid = new ArrayList<>(items.size());
+        List<Integer> positions = new ArrayList<>(items.size());
+        Set<String> codes = new HashSet<>();
+
+        for (int i = 0; i < items.size(); i++) {
+            RealtimeWeatherBulkItemDTO item = items.get(i);
+            String error = validate(item);
+
+            if (error == null && !codes.add(item.getLocationCode())) {
+                error = "Duplicate location code in request";
+            }
+
+            if (error != null) {
+                results[i] = new ItemResult(item != null ? item.getLocationCode() : null,
+                        RealtimeWeatherBulkResultDTO.STATUS_FAILED, error);
+            } else {
+                valid.add(item);
+                positions.add(i);
+            }
+        }
+
+        LocalDateTime lastUpdated = LocalDateTime.now();
+        int created = 0;
+        int updated = 0;
+
+        for (int from = 0; from < valid.size(); from += chunkSize) {
+            int to = Math.min(from + chunkSize, valid.size());
+
+            Map<String, String> statuses = write(valid.subList(from, to), lastUpdated);
+
+            for (int i = from; i < to; i++) {
+                String locationCode = valid.get(i).getLocationCode();
+
+                if (statuses == null) {
+                    results[positions.get(i)] = new ItemResult(locationCode, RealtimeWeatherBulkResultDTO.STATUS_FAILED,
+                            WRITE_FAILED);
+                    continue;
+                }
+
+                String status = statuses.get(locationCode);
+
+                if (status == null) {
+                    results[positions.get(i)] = new ItemResult(locationCode, RealtimeWeatherBulkResultDTO.STATUS_FAILED,
+                            "No location found with the given code: " + locationCode);
+                    continue;
+                }
+
+                if (RealtimeWeatherBulkResultDTO.STATUS_CREATED.equals(status)) {
+                    created++;
+                } else {
+                    updated++;
+                }
+
+                realtimeWeatherService.refresh(valid.get(i), lastUpdated);
+                results[positions.get(i)] = new ItemResult(locationCode, status, null);
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        int applied = created + updated;
+
+        return RealtimeWeatherBulkResultDTO.builder()
+                .total(items.size())
+                .created(created)
+                .updated(updated)
+                .failed(items.size() - applied)
+                .elapsedMillis(elapsedNanos / 1_000_000)
+                .updatesPerSecond(elapsedNanos > 0 ? applied * 1_000_000_000.0 / elapsedNanos : 0)
+                .results(List.of(results))
+                .build();
+    }
+
+    /**
+     * Ingests newline-delimited JSON records. A later record for the same location replaces an earlier
+     * one that has not been written yet; across chunks records are simply applied in order.
+     */
+    public RealtimeWeatherIngestResultDTO ingest(InputStream inputStream) throws IOException {
+        long start = System.nanoTime();
+
+        Ingest ingest = new Ingest();
+
+        JsonStreamReader.read(objectMapper, inputStream, JsonStreamReader.APPLICATION_NDJSON,
+                RealtimeWeatherBulkItemDTO.class, ingest::accept);
+        ingest.flush();
+
+        long elapsedNanos = System.nanoTime() - start;
+        long applied = ingest.created + ingest.updated;
+
+        return RealtimeWeatherIngestResultDTO.builder()
+                .lines(ingest.lines)
+                .created(ingest.created)
+                .updated(ingest.updated)
+                .superseded(ingest.superseded)
+                .failed(ingest.failed)
+                .elapsedMillis(elapsedNanos / 1_000_000)
+                .updatesPerSecond(elapsedNanos > 0 ? applied * 1_000_000_000.0 / elapsedNanos : 0)
+                .errors(ingest.errors)
+                .errorsTruncated(ingest.failed > ingest.errors.size())
+                .build();
+    }
+
+    // earlier chunks are already committed, so a failed chunk only fails its own items
+    private Map<String, String> write(List<RealtimeWeatherBulkItemDTO> items, LocalDateTime lastUpdated) {
+        try {
+            return bulkWriter.write(items, lastUpdated);
+        } catch (RuntimeException ex) {
+            LOGGER.error("Failed to write " + items.size() + " realtime weather updates: " + ex.getMessage(), ex);
+            return null;
+        }
+    }
+
+    private String validate(RealtimeWeatherBulkItemDTO item) {
+        if (item == null) {
+            return "Item must not be null";
+        }
+
+        Set<ConstraintViolation<RealtimeWeatherBulkItemDTO>> violations = validator.validate(item);
+
+        if (violations.isEmpty()) {
+            return null;
+        }
+
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private class Ingest {
+
+        private record Pending(long line, RealtimeWeatherBulkItemDTO item) {
+        }
+
+        // at most one chunk of records waiting to be written, by location code
+        private final Map<String, Pending> pending = new LinkedHashMap<>();
+
+        private final List<LineError> errors = new ArrayList<>();
+
+        private long lines;
+        private long created;
+        private long updated;
+        private long superseded;
+        private long failed;
+
+        void accept(long line, RealtimeWeatherBulkItemDTO item, String parseError) {
+            lines++;
+
+            String error = parseError != null ? parseError : validate(item);
+
+            if (error != null) {
+                fail(line, item != null ? item.getLocationCode() : null, error);
+                return;
+            }
+
+            if (pending.put(item.getLocationCode(), new Pending(line, item)) != null) {
+                superseded++;
+            }
+
+            if (pending.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            List<RealtimeWeatherBulkItemDTO> items = pending.values().stream().map(Pending::item).toList();
+            LocalDateTime lastUpdated = LocalDateTime.now();
+            Map<String, String> statuses = write(items, lastUpdated);
+
+            for (Pending entry : pending.values()) {
+                String locationCode = entry.item().getLocationCode();
+
+                if (statuses == null) {
+                    fail(entry.line(), locationCode, WRITE_FAILED);
+                    continue;
+                }
+
+                String status = statuses.get(locationCode);
+
+                if (status == null) {
+                    fail(entry.line(), locationCode, "No location found with the given code: " + locationCode);
+                    continue;
+                }
+
+                if (RealtimeWeatherBulkResultDTO.STATUS_CREATED.equals(status)) {
+                    created++;
+                } else {
+                    updated++;
+                }
+
+                realtimeWeatherService.refresh(entry.item(), lastUpdated);
+            }
+
+            pending.clear();
+        }
+
+        private void fail(long line, String locationCode, String error) {
+            failed++;
+
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new LineError(line, locationCode, error));
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.skyapi.weatherforecast.realtime.service;
+
+import com.skyapi.weatherforecast.common.Location;
+import com.skyapi.weatherforecast.common.RealtimeWeather;
+import com.skyapi.weatherforecast.location.repository.LocationRepository;
+import com.skyapi.weatherforecast.realtime.dto.RealtimeWeatherBulkItemDTO;
+import com.skyapi.weatherforecast.realtime.dto.RealtimeWeatherBulkResultDTO;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Writes one chunk of a bulk update in a single transaction. All locations of the chunk are loaded, together
+ * with their current weather, by one query; the changes are then flushed as batched inserts and updates.
+ */
+@Component
+@RequiredArgsConstructor
+public class RealtimeWeatherBulkWriter {
+
+    private final LocationRepository locationRepo;
+
+    /**
+     * @param items valid items with distinct location codes
+     * @return CREATED or UPDATED by location code; codes of unknown or trashed locations are missing
+     */
+    @Transactional
+    public Map<String, String> write(List<RealtimeWeatherBulkItemDTO> items, LocalDateTime lastUpdated) {
+        return write(items, RealtimeWeatherBulkItemDTO::getLocationCode, (item, realtimeWeather) -> {
+            realtimeWeather.setTemperature(item.getTemperature());
+            realtimeWeather.setHumidity(item.getHumidity());
+            realtimeWeather.setPrecipitation(item.getPrecipitation());
+            realtimeWeather.setWindSpeed(item.getWindSpeed());
+            realtimeWeather.setStatus(item.getStatus());
+            realtimeWeather.setLastUpdated(lastUpdated);
+        });
+    }
+
+    /**
+     * Same as {@link #write(List, LocalDateTime)} for weather that already carries its update time.
+     */
+    @Transactional
+    public Map<String, String> writeAll(List<RealtimeWeather> realtimeWeathers) {
+        return write(realtimeWeathers, RealtimeWeather::getLocationCode, (source, realtimeWeather) -> {
+            realtimeWeather.setTemperature(source.getTemperature());
+            realtimeWeather.setHumidity(source.getHumidity());
+            realtimeWeather.setPrecipitation(source.getPrecipitation());
+            realtimeWeather.setWindSpeed(source.getWindSpeed());
+            realtimeWeather.setStatus(source.getStatus());
+            realtimeWeather.setLastUpdated(source.getLastUpdated());
+        });
+    }
+
+    private <T> Map<String, String> write(List<T> items, Function<T, String> locationCode,
+                                          BiConsumer<T, RealtimeWeather> copy) {
+        List<String> codes = items.stream().map(locationCode).toList();
+
+        Map<String, Location> locations = new HashMap<>();
+        locationRepo.findWithRealtimeWeatherByCodeIn(codes).forEach(location -> locations.put(location.getCode(), location));
+
+        Map<String, String> statuses = new HashMap<>();
+
+        for (T item : items) {
+            Location location = locations.get(locationCode.apply(item));
+
+            if (location == null) {
+                continue;
+            }
+
+            RealtimeWeather realtimeWeather = location.getRealtimeWeather();
+
+            if (realtimeWeather == null) {
+                // persisted through the cascade from the managed location when the transaction flushes
+                realtimeWeather = new RealtimeWeather();
+                realtimeWeather.setLocation(location);
+                location.setRealtimeWeather(realtimeWeather);
+
+                statuses.put(location.getCode(), RealtimeWeatherBulkResultDTO.STATUS_CREATED);
+            } else {
+                statuses.put(location.getCode(), RealtimeWeatherBulkResultDTO.STATUS_UPDATED);
+            }
+
+            copy.accept(item, realtimeWeather);
+        }
+
+        return statuses;
+    }
+}
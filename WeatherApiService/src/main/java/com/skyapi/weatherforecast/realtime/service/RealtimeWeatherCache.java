@@ -0,0 +1,95 @@
+package com.skyapi.weatherforecast.realtime.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skyapi.weatherforecast.cache.CacheStats;
+import com.skyapi.weatherforecast.cache.ExpiringCache;
+import com.skyapi.weatherforecast.common.RealtimeWeather;
+import com.skyapi.weatherforecast.realtime.config.RealtimeWeatherProperties;
+import com.skyapi.weatherforecast.realtime.dto.RealtimeWeatherDTO;
+import org.modelmapper.ModelMapper;
+import org.springframework.stereotype.Component;
+
+/**
+ * Realtime weather by location code. Entries are replaced when the weather is updated
+ * and dropped when the location changes, so reads only reach the database after a miss.
+ * <p>
+ * Each entry also holds the weather already serialized as a {@link RealtimeWeatherDTO},
+ * so serving it is a plain byte copy.
+ */
+@Component
+public class RealtimeWeatherCache {
+
+    private final ExpiringCache<String, Entry> cache;
+
+    private final ModelMapper modelMapper;
+
+    private final ObjectMapper objectMapper;
+
+    public RealtimeWeatherCache(RealtimeWeatherProperties properties, ModelMapper modelMapper,
+                                ObjectMapper objectMapper) {
+        RealtimeWeatherProperties.Cache cacheProperties = properties.getCache();
+
+        this.cache = cacheProperties.isEnabled()
+                ? new ExpiringCache<>(cacheProperties.getMaxSize(), cacheProperties.getTtl())
+                : null;
+        this.modelMapper = modelMapper;
+        this.objectMapper = objectMapper;
+    }
+
+    public Entry get(String locationCode) {
+        return cache != null ? cache.get(locationCode) : null;
+    }
+
+    /**
+     * Serializes the weather and caches it, replacing any previous entry of its location.
+     *
+     * @return the new entry, also when caching is disabled
+     */
+    public Entry put(RealtimeWeather realtimeWeather) {
+        Entry entry = new Entry(realtimeWeather, serialize(realtimeWeather));
+
+        if (cache != null) {
+            cache.put(realtimeWeather.getLocationCode(), entry);
+        }
+
+        return entry;
+    }
+
+    /**
+     * Serializes weather loaded from the database and caches it, unless an update cached its location meanwhile:
+     * a concurrent update may have committed after the weather was read.
+     *
+     * @return the entry cached for the location afterwards, or the new entry when caching is disabled
+     */
+    public Entry putIfAbsent(RealtimeWeather realtimeWeather) {
+        Entry entry = new Entry(realtimeWeather, serialize(realtimeWeather));
+
+        return cache != null ? cache.putIfAbsent(realtimeWeather.getLocationCode(), entry) : entry;
+    }
+
+    public void invalidate(String locationCode) {
+        if (cache != null) {
+            cache.invalidate(locationCode);
+        }
+    }
+
+    public CacheStats stats() {
+        return cache != null ? cache.stats() : new CacheStats();
+    }
+
+    private byte[] serialize(RealtimeWeather realtimeWeather) {
+        try {
+            return objectMapper.writeValueAsBytes(modelMapper.map(realtimeWeather, RealtimeWeatherDTO.class));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Failed to serialize realtime weather of "
+                    + realtimeWeather.getLocationCode(), ex);
+        }
+    }
+
+    /**
+     * @param json the UTF-8 encoded JSON of the weather as a {@link RealtimeWeatherDTO}
+     */
+    public record Entry(RealtimeWeather realtimeWeather, byte[] json) {
+    }
+}
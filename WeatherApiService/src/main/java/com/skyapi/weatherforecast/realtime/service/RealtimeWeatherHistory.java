@@ -0,0 +1,163 @@
+package com.skyapi.weatherforecast.realtime.service;
+
+import com.skyapi.weatherforecast.realtime.config.RealtimeWeatherProperties;
+import com.skyapi.weatherforecast.realtime.dto.RealtimeWeatherHistoryDTO;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Recent realtime weather of every location, in a fixed-size ring per location.
+ * <p>
+ * A ring holds its samples in primitive arrays, eight bytes per sample, so keeping a day of history for every
+ * location costs no objects beyond the ring itself. Each sample covers one resolution interval; an update within
+ * the interval of the newest sample replaces its values, so the ring spans the whole retention regardless of
+ * how often a location is updated.
+ */
+@Component
+public class RealtimeWeatherHistory {
+
+    // sample times are stored as int seconds since this instant, good until 2088
+    private static final long EPOCH_SECOND = LocalDateTime.of(2020, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+
+    private final boolean enabled;
+
+    private final long resolutionSeconds;
+
+    private final long retentionSeconds;
+
+    private final int capacity;
+
+    private final Map<String, Ring> rings = new ConcurrentHashMap<>();
+
+    public RealtimeWeatherHistory(RealtimeWeatherProperties properties) {
+        RealtimeWeatherProperties.History history = properties.getHistory();
+
+        this.enabled = history.isEnabled();
+        this.resolutionSeconds = Math.max(1, history.getResolution().toSeconds());
+        this.retentionSeconds = Math.max(resolutionSeconds, history.getRetention().toSeconds());
+        this.capacity = (int) ((retentionSeconds + resolutionSeconds - 1) / resolutionSeconds);
+    }
+
+    /**
+     * Records an update. Updates older than the newest sample of the location are ignored.
+     */
+    public void append(String locationCode, LocalDateTime lastUpdated, int temperature, int humidity,
+                       int precipitation, int windSpeed) {
+        if (!enabled) {
+            return;
+        }
+
+        rings.computeIfAbsent(locationCode, code -> new Ring(capacity))
+                .append(seconds(lastUpdated), resolutionSeconds, temperature, humidity, precipitation, windSpeed);
+    }
+
+    /**
+     * @return the samples of the location within the retention before {@code now}, oldest first
+     */
+    public RealtimeWeatherHistoryDTO get(String locationCode, LocalDateTime now) {
+        Ring ring = rings.get(locationCode);
+
+        List<RealtimeWeatherHistoryDTO.Sample> samples = ring != null
+                ? ring.samples(seconds(now) - retentionSeconds)
+                : List.of();
+
+        return RealtimeWeatherHistoryDTO.builder()
+                .locationCode(locationCode)
+                .resolutionSeconds(resolutionSeconds)
+                .samples(samples)
+                .build();
+    }
+
+    public void remove(String locationCode) {
+        rings.remove(locationCode);
+    }
+
+    private static long seconds(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) - EPOCH_SECOND;
+    }
+
+    private static LocalDateTime dateTime(int seconds) {
+        return LocalDateTime.ofEpochSecond(EPOCH_SECOND + seconds, 0, ZoneOffset.UTC);
+    }
+
+    private static final class Ring {
+
+        private final int[] seconds;
+        private final byte[] temperature;
+        private final byte[] humidity;
+        private final byte[] precipitation;
+
+        // 0 to 200, read back unsigned
+        private final byte[] windSpeed;
+
+        // slot of the newest sample
+        private int head;
+        private int size;
+
+        Ring(int capacity) {
+            this.seconds = new int[capacity];
+            this.temperature = new byte[capacity];
+            this.humidity = new byte[capacity];
+            this.precipitation = new byte[capacity];
+            this.windSpeed = new byte[capacity];
+            this.head = capacity - 1;
+        }
+
+        synchronized void append(long time, long resolutionSeconds, int temperature, int humidity,
+                                 int precipitation, int windSpeed) {
+            if (size > 0) {
+                long newest = seconds[head];
+
+                if (time < newest) {
+                    return;
+                }
+
+                if (time / resolutionSeconds != newest / resolutionSeconds) {
+                    advance();
+                }
+            } else {
+                advance();
+            }
+
+            this.seconds[head] = (int) time;
+            this.temperature[head] = (byte) temperature;
+            this.humidity[head] = (byte) humidity;
+            this.precipitation[head] = (byte) precipitation;
+            this.windSpeed[head] = (byte) windSpeed;
+        }
+
+        synchronized List<RealtimeWeatherHistoryDTO.Sample> samples(long since) {
+            List<RealtimeWeatherHistoryDTO.Sample> samples = new ArrayList<>(size);
+            int capacity = seconds.length;
+
+            for (int i = size - 1; i >= 0; i--) {
+                int slot = (head - i + capacity) % capacity;
+
+                if (seconds[slot] < since) {
+                    continue;
+                }
+
+                samples.add(RealtimeWeatherHistoryDTO.Sample.builder()
+                        .lastUpdated(dateTime(seconds[slot]))
+                        .temperature(temperature[slot])
+                        .humidity(humidity[slot])
+                        .precipitation(precipitation[slot])
+                        .windSpeed(windSpeed[slot] & 0xFF)
+                        .build());
+            }
+
+            return samples;
+        }
+
+        private void advance() {
+            head = (head + 1) % seconds.length;
+            size = Math.min(size + 1, seconds.length);
+        }
+    }
+}
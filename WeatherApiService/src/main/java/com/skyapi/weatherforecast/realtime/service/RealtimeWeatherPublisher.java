@@ -0,0 +1,391 @@
+package com.skyapi.weatherforecast.realtime.service;
+
+import com.skyapi.weatherforecast.exception.BadRequestException;
+import com.skyapi.weatherforecast.realtime.config.RealtimeWeatherProperties;
+import com.skyapi.weatherforecast.realtime.dto.RealtimeWeatherEventStatsDTO;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Pushes realtime weather changes to server-sent event subscribers.
+ * <p>
+ * Publishing only appends to a bounded queue per subscriber; a small pool of dispatcher threads drains the
+ * queues onto the connections, so an idle subscription holds no thread. A subscriber whose queue is full
+ * is disconnected instead of slowing down publishers or other subscribers.
+ * <p>
+ * Writes to a connection block while the client does not read. A subscriber whose write has not returned
+ * within the write timeout is disconnected, and the pool gets a thread in place of the one stuck in the
+ * write until that write fails, so clients that stop reading cannot take all dispatcher threads.
+ */
+@Component
+public class RealtimeWeatherPublisher {
+
+    public static final String EVENT_NAME = "realtime";
+
+    // queued in place of an event to send a heartbeat comment
+    private static final Object HEARTBEAT = new Object();
+
+    private static final long TIMED_OUT = Long.MIN_VALUE;
+
+    private final int maxCodes;
+
+    private final int queueCapacity;
+
+    private final long writeTimeoutNanos;
+
+    private final ExecutorService dispatcher;
+
+    private final int dispatcherThreads;
+
+    // dispatcher threads stuck in writes to disconnected subscribers, replaced by additional threads
+    private final AtomicInteger stalledWrites = new AtomicInteger();
+
+    private final Supplier<SseEmitter> emitterFactory;
+
+    private final Map<String, Set<Subscriber>> subscribersByCode = new ConcurrentHashMap<>();
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    @Autowired
+    public RealtimeWeatherPublisher(RealtimeWeatherProperties properties) {
+        this(properties, Executors.newFixedThreadPool(Math.max(1, properties.getEvents().getDispatcherThreads()),
+                dispatcherThreadFactory()));
+    }
+
+    RealtimeWeatherPublisher(RealtimeWeatherProperties properties, ExecutorService dispatcher) {
+        this(properties, dispatcher, () -> new SseEmitter(properties.getEvents().getTimeout().toMillis()));
+    }
+
+    RealtimeWeatherPublisher(RealtimeWeatherProperties properties, ExecutorService dispatcher,
+                             Supplier<SseEmitter> emitterFactory) {
+        RealtimeWeatherProperties.Events events = properties.getEvents();
+
+        this.maxCodes = events.getMaxCodes();
+        this.queueCapacity = Math.max(1, events.getQueueCapacity());
+        this.writeTimeoutNanos = events.getWriteTimeout().toNanos();
+        this.dispatcher = dispatcher;
+        this.dispatcherThreads = Math.max(1, events.getDispatcherThreads());
+        this.emitterFactory = emitterFactory;
+    }
+
+    /**
+     * Opens a subscription to the given locations. The current weather of each location, as returned by
+     * {@code currentWeather}, is queued as the first event so clients do not need a separate GET.
+     *
+     * @param currentWeather the JSON and version of the current weather of a location, or null if it has none
+     */
+    public SseEmitter subscribe(Collection<String> locationCodes, Function<String, Event> currentWeather)
+            throws BadRequestException {
+
+        Set<String> codes = new LinkedHashSet<>();
+
+        for (String locationCode : locationCodes) {
+            if (locationCode != null && !locationCode.isBlank()) {
+                codes.add(locationCode.trim());
+            }
+        }
+
+        if (codes.isEmpty()) {
+            throw new BadRequestException("At least one location code is required");
+        }
+
+        if (codes.size() > maxCodes) {
+            throw new BadRequestException("A subscription is limited to " + maxCodes + " location codes");
+        }
+
+        Subscriber subscriber = new Subscriber(emitterFactory.get(), codes);
+
+        subscriber.emitter.onCompletion(subscriber::close);
+        subscriber.emitter.onTimeout(subscriber::close);
+        subscriber.emitter.onError(ex -> subscriber.close());
+
+        subscribers.add(subscriber);
+        codes.forEach(code -> subscribersByCode.computeIfAbsent(code, c -> ConcurrentHashMap.newKeySet()).add(subscriber));
+
+        // registered first, so a change made meanwhile is not lost; the version check drops whichever is older
+        for (String code : codes) {
+            Event event = currentWeather.apply(code);
+
+            if (event != null) {
+                subscriber.offer(event);
+            }
+        }
+
+        return subscriber.emitter;
+    }
+
+    public boolean hasSubscribers(String locationCode) {
+        Set<Subscriber> subscribed = subscribersByCode.get(locationCode);
+
+        return subscribed != null && !subscribed.isEmpty();
+    }
+
+    public void publish(Event event) {
+        Set<Subscriber> subscribed = subscribersByCode.get(event.locationCode());
+
+        if (subscribed == null) {
+            return;
+        }
+
+        published.increment();
+
+        for (Subscriber subscriber : subscribed) {
+            subscriber.offer(event);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${realtime.events.heartbeat-interval:PT30S}",
+            fixedDelayString = "${realtime.events.heartbeat-interval:PT30S}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(null);
+        }
+    }
+
+    /**
+     * Disconnects subscribers whose current write has been blocked for longer than the write timeout. Runs at
+     * the interval of the timeout, so a stuck write is noticed after one to two timeouts.
+     */
+    @Scheduled(initialDelayString = "${realtime.events.write-timeout:PT10S}",
+            fixedDelayString = "${realtime.events.write-timeout:PT10S}")
+    public void closeStalledSubscribers() {
+        long now = System.nanoTime();
+
+        for (Subscriber subscriber : subscribers) {
+            long started = subscriber.sendStarted.get();
+
+            if (started != 0 && started != TIMED_OUT && now - started > writeTimeoutNanos) {
+                subscriber.timeOut(started);
+            }
+        }
+    }
+
+    public RealtimeWeatherEventStatsDTO stats() {
+        return RealtimeWeatherEventStatsDTO.builder()
+                .subscribers(subscribers.size())
+                .subscribedLocations(subscribersByCode.size())
+                .queueCapacity(queueCapacity)
+                .published(published.sum())
+                .delivered(delivered.sum())
+                .evicted(evicted.sum())
+                .timedOut(timedOut.sum())
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        dispatcher.shutdownNow();
+    }
+
+    // keeps dispatcherThreads threads free for writes that are not stuck
+    private void resizeDispatcher() {
+        if (!(dispatcher instanceof ThreadPoolExecutor pool)) {
+            return;
+        }
+
+        synchronized (pool) {
+            int size = dispatcherThreads + stalledWrites.get();
+
+            if (size > pool.getMaximumPoolSize()) {
+                pool.setMaximumPoolSize(size);
+                pool.setCorePoolSize(size);
+            } else {
+                pool.setCorePoolSize(size);
+                pool.setMaximumPoolSize(size);
+            }
+        }
+    }
+
+    private static ThreadFactory dispatcherThreadFactory() {
+        AtomicInteger count = new AtomicInteger();
+
+        return runnable -> {
+            Thread thread = new Thread(runnable, "realtime-events-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * @param id   sent as the event id; the entity tag of the weather, so clients can reuse it in If-None-Match
+     * @param json the UTF-8 encoded weather
+     */
+    public record Event(String locationCode, long version, String id, byte[] json) {
+    }
+
+    private class Subscriber implements Runnable {
+
+        private final SseEmitter emitter;
+
+        private final Set<String> codes;
+
+        private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        // newest version queued per location, so an older state never overtakes a newer one
+        private final Map<String, Long> versions = new HashMap<>();
+
+        private volatile boolean closed;
+
+        // System.nanoTime() when the write in progress started, 0 while not writing, TIMED_OUT once given up on
+        private final AtomicLong sendStarted = new AtomicLong();
+
+        Subscriber(SseEmitter emitter, Set<String> codes) {
+            this.emitter = emitter;
+            this.codes = codes;
+        }
+
+        void offer(Event event) {
+            if (closed) {
+                return;
+            }
+
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+
+                if (event != null) {
+                    Long version = versions.get(event.locationCode());
+
+                    if (version != null && version >= event.version()) {
+                        return;
+                    }
+
+                    versions.put(event.locationCode(), event.version());
+                }
+
+                if (!queue.offer(event != null ? event : HEARTBEAT)) {
+                    evict();
+                    return;
+                }
+            }
+
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    dispatcher.execute(this);
+                } catch (RejectedExecutionException ex) {
+                    close();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                Object item;
+
+                while (!closed && (item = queue.poll()) != null) {
+                    long started = System.nanoTime();
+                    sendStarted.set(started);
+
+                    if (item == HEARTBEAT) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        Event event = (Event) item;
+
+                        emitter.send(SseEmitter.event()
+                                .name(EVENT_NAME)
+                                .id(event.id())
+                                .data(event.json(), MediaType.APPLICATION_JSON));
+
+                        delivered.increment();
+                    }
+
+                    if (!sendStarted.compareAndSet(started, 0)) {
+                        break;
+                    }
+                }
+            } catch (IOException | IllegalStateException ex) {
+                // the client went away
+                close();
+            } finally {
+                scheduled.set(false);
+
+                // the thread that replaced this one is no longer needed
+                if (sendStarted.getAndSet(0) == TIMED_OUT) {
+                    stalledWrites.decrementAndGet();
+                    resizeDispatcher();
+                }
+            }
+
+            // an event offered while this run was finishing
+            if (!closed && !queue.isEmpty()) {
+                schedule();
+            }
+        }
+
+        void timeOut(long started) {
+            if (!sendStarted.compareAndSet(started, TIMED_OUT)) {
+                return;
+            }
+
+            timedOut.increment();
+            stalledWrites.incrementAndGet();
+            resizeDispatcher();
+
+            close();
+            emitter.completeWithError(new IOException("Write to event stream timed out"));
+        }
+
+        private void evict() {
+            evicted.increment();
+            close();
+            emitter.complete();
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            subscribers.remove(this);
+
+            for (String code : codes) {
+                subscribersByCode.computeIfPresent(code, (c, subscribed) -> {
+                    subscribed.remove(this);
+                    return subscribed.isEmpty() ? null : subscribed;
+                });
+            }
+
+            queue.clear();
+        }
+    }
+}
@@ -1,27 +1,61 @@
 package com.skyapi.weatherforecast.realtime.service;
 
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.skyapi.weatherforecast.cache.CacheStats;
 import com.skyapi.weatherforecast.common.Location;
 import com.skyapi.weatherforecast.common.RealtimeWeather;
+import com.skyapi.weatherforecast.exception.BadRequestException;
 import com.skyapi.weatherforecast.exception.LocationNotFoundException;
 import com.skyapi.weatherforecast.location.repository.LocationRepository;
+import com.skyapi.weatherforecast.location.service.LocationCodeIndex;
+import com.skyapi.weatherforecast.location.utils.CommonUtility;
+import com.skyapi.weatherforecast.realtime.config.RealtimeWeatherProperties;
+import com.skyapi.weatherforecast.realtime.dto.RealtimeWeatherBulkItemDTO;
+import com.skyapi.weatherforecast.realtime.dto.RealtimeWeatherDTO;
+import com.skyapi.weatherforecast.realtime.dto.RealtimeWeatherEventStatsDTO;
+import com.skyapi.weatherforecast.realtime.dto.RealtimeWeatherHistoryDTO;
+import com.skyapi.weatherforecast.realtime.dto.RealtimeWeatherWriteBehindStatsDTO;
 import com.skyapi.weatherforecast.realtime.repository.RealtimeWeatherRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class RealtimeWeatherService {
 
+    private static final byte[] LOCATIONS_FIELD = "{\"locations\":{".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NOT_FOUND_FIELD = "},\"not_found\":[".getBytes(StandardCharsets.UTF_8);
+
     private final RealtimeWeatherRepository realtimeWeatherRepo;
     private final LocationRepository locationRepo;
+    private final LocationCodeIndex locationCodeIndex;
+    private final RealtimeWeatherCache realtimeWeatherCache;
+    private final RealtimeWeatherPublisher realtimeWeatherPublisher;
+    private final RealtimeWeatherWriteBehind realtimeWeatherWriteBehind;
+    private final RealtimeWeatherHistory realtimeWeatherHistory;
+    private final RealtimeWeatherProperties properties;
 
     public RealtimeWeather getByLocation(Location location) throws LocationNotFoundException {
         String countryCode = location.getCountryCode();
         String cityName = location.getCityName();
 
-        RealtimeWeather realtimeWeather = realtimeWeatherRepo.findByCountryCodeAndCity(countryCode, cityName);
+        String locationCode = locationCodeIndex.findCode(countryCode, cityName);
+
+        RealtimeWeather realtimeWeather = locationCode != null ? findByLocationCode(locationCode) : null;
 
         if (realtimeWeather == null) {
             throw new LocationNotFoundException("No location found with the given country code and city name");
@@ -31,7 +65,7 @@ public class RealtimeWeatherService {
     }
 
     public RealtimeWeather getByLocationCode(String locationCode) throws LocationNotFoundException {
-        RealtimeWeather realtimeWeather = realtimeWeatherRepo.findByLocationCode(locationCode);
+        RealtimeWeather realtimeWeather = findByLocationCode(locationCode);
 
         if (realtimeWeather == null) {
             throw new LocationNotFoundException("No location found with the given code: " + locationCode);
@@ -40,7 +74,28 @@ public class RealtimeWeatherService {
         return realtimeWeather;
     }
 
+    /**
+     * @return the weather of the location as UTF-8 encoded {@link RealtimeWeatherDTO} JSON
+     */
+    public byte[] getJsonByLocationCode(String locationCode) throws LocationNotFoundException {
+        RealtimeWeatherCache.Entry entry = findEntry(locationCode);
+
+        if (entry == null) {
+            throw new LocationNotFoundException("No location found with the given code: " + locationCode);
+        }
+
+        return entry.json();
+    }
+
     public RealtimeWeather update(String locationCode, RealtimeWeather realtimeWeather) throws LocationNotFoundException {
+        if (realtimeWeatherWriteBehind.isEnabled()) {
+            return updateBehind(locationCode, realtimeWeather);
+        }
+
+        if (properties.isNativeUpsert()) {
+            return upsert(locationCode, realtimeWeather);
+        }
+
         Location location = locationRepo.findByCode(locationCode);
 
         if (location == null) {
@@ -50,13 +105,296 @@ public class RealtimeWeatherService {
         realtimeWeather.setLocation(location);
         realtimeWeather.setLastUpdated(LocalDateTime.now());
 
+        RealtimeWeather updatedRealtimeWeather;
+
         if (location.getRealtimeWeather() == null) {
             location.setRealtimeWeather(realtimeWeather);
             Location updatedLocation = locationRepo.save(location);
 
-            return updatedLocation.getRealtimeWeather();
+            updatedRealtimeWeather = updatedLocation.getRealtimeWeather();
+        } else {
+            updatedRealtimeWeather = realtimeWeatherRepo.save(realtimeWeather);
+        }
+
+        changed(updatedRealtimeWeather);
+
+        return updatedRealtimeWeather;
+    }
+
+    /**
+     * Writes the update with a single statement. The location is only loaded when it is not known from the cache,
+     * so an update of cached weather costs one round trip.
+     */
+    private RealtimeWeather upsert(String locationCode, RealtimeWeather realtimeWeather) {
+        realtimeWeather.setLocationCode(locationCode);
+        realtimeWeather.setLastUpdated(LocalDateTime.now());
+
+        if (realtimeWeatherRepo.upsert(realtimeWeather) == 0) {
+            throw new LocationNotFoundException("No location found with the given code: " + locationCode);
+        }
+
+        realtimeWeather.setLocation(findLocation(locationCode));
+
+        changed(realtimeWeather);
+
+        return realtimeWeather;
+    }
+
+    /**
+     * Accepts the update into the write-behind slot of the location, where reads see it at once,
+     * and leaves persisting it to the background flush.
+     */
+    private RealtimeWeather updateBehind(String locationCode, RealtimeWeather realtimeWeather) {
+        realtimeWeather.setLocation(findLocation(locationCode));
+        realtimeWeather.setLastUpdated(LocalDateTime.now());
+
+        realtimeWeatherWriteBehind.put(changed(realtimeWeather));
+
+        return realtimeWeather;
+    }
+
+    private RealtimeWeatherCache.Entry changed(RealtimeWeather realtimeWeather) {
+        RealtimeWeatherCache.Entry entry = realtimeWeatherCache.put(realtimeWeather);
+
+        realtimeWeatherHistory.append(realtimeWeather.getLocationCode(), realtimeWeather.getLastUpdated(),
+                realtimeWeather.getTemperature(), realtimeWeather.getHumidity(), realtimeWeather.getPrecipitation(),
+                realtimeWeather.getWindSpeed());
+        realtimeWeatherPublisher.publish(event(entry));
+
+        return entry;
+    }
+
+    /**
+     * Brings cache, write-behind slot, history and subscribers up to date after a location's weather
+     * was written directly at {@code writtenAt}.
+     */
+    public void refresh(RealtimeWeatherBulkItemDTO item, LocalDateTime writtenAt) {
+        String locationCode = item.getLocationCode();
+
+        realtimeWeatherHistory.append(locationCode, writtenAt, item.getTemperature(), item.getHumidity(),
+                item.getPrecipitation(), item.getWindSpeed());
+        realtimeWeatherWriteBehind.discard(locationCode, writtenAt);
+        realtimeWeatherCache.invalidate(locationCode);
+
+        if (!realtimeWeatherPublisher.hasSubscribers(locationCode)) {
+            return;
+        }
+
+        RealtimeWeatherCache.Entry entry = findEntry(locationCode);
+
+        if (entry != null) {
+            realtimeWeatherPublisher.publish(event(entry));
+        }
+    }
+
+    /**
+     * Writes the weather of many locations as one JSON document: cached weather is copied as is, the rest
+     * is loaded with a single query. Unknown locations, and locations without weather, are listed under
+     * {@code not_found} instead of failing the request.
+     */
+    public byte[] getJsonByLocationCodes(Collection<String> locationCodes) throws BadRequestException {
+        Set<String> codes = new LinkedHashSet<>();
+
+        for (String locationCode : locationCodes) {
+            if (locationCode != null && !locationCode.isBlank()) {
+                codes.add(locationCode.trim());
+            }
+        }
+
+        if (codes.isEmpty()) {
+            throw new BadRequestException("At least one location code is required");
+        }
+
+        if (codes.size() > properties.getMaxReadCodes()) {
+            throw new BadRequestException("A request is limited to " + properties.getMaxReadCodes() + " location codes");
+        }
+
+        Map<String, byte[]> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+
+        for (String code : codes) {
+            RealtimeWeatherCache.Entry entry = cachedEntry(code);
+
+            if (entry != null) {
+                found.put(code, entry.json());
+            } else {
+                missing.add(code);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            for (RealtimeWeather realtimeWeather : realtimeWeatherRepo.findByLocationCodeIn(missing)) {
+                found.put(realtimeWeather.getLocationCode(), realtimeWeatherCache.putIfAbsent(realtimeWeather).json());
+            }
+        }
+
+        return writeLocations(codes, found);
+    }
+
+    /**
+     * Opens a server-sent event stream of the weather of the given locations, starting with their current weather.
+     */
+    public SseEmitter subscribe(Collection<String> locationCodes) throws BadRequestException {
+        return realtimeWeatherPublisher.subscribe(locationCodes, locationCode -> {
+            RealtimeWeatherCache.Entry entry = findEntry(locationCode);
+
+            return entry != null ? event(entry) : null;
+        });
+    }
+
+    public RealtimeWeatherEventStatsDTO getEventStats() {
+        return realtimeWeatherPublisher.stats();
+    }
+
+    public RealtimeWeatherWriteBehindStatsDTO getWriteBehindStats() {
+        return realtimeWeatherWriteBehind.stats();
+    }
+
+    /**
+     * Entity tag of the weather of the location, derived from its code and last update time.
+     * Answered from the cache when possible, otherwise by loading just the update time.
+     *
+     * @return the quoted tag, or null if the location has no realtime weather
+     */
+    public String getETag(String locationCode) {
+        RealtimeWeatherCache.Entry entry = cachedEntry(locationCode);
+
+        LocalDateTime lastUpdated = entry != null
+                ? entry.realtimeWeather().getLastUpdated()
+                : realtimeWeatherRepo.findLastUpdatedByLocationCode(locationCode);
+
+        return lastUpdated != null ? eTag(locationCode, lastUpdated) : null;
+    }
+
+    static String eTag(String locationCode, LocalDateTime lastUpdated) {
+        return CommonUtility.strongETag(locationCode, version(lastUpdated));
+    }
+
+    private static long version(LocalDateTime lastUpdated) {
+        Instant instant = lastUpdated.toInstant(ZoneOffset.UTC);
+
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+
+    private static RealtimeWeatherPublisher.Event event(RealtimeWeatherCache.Entry entry) {
+        String locationCode = entry.realtimeWeather().getLocationCode();
+        LocalDateTime lastUpdated = entry.realtimeWeather().getLastUpdated();
+
+        return new RealtimeWeatherPublisher.Event(locationCode, version(lastUpdated), eTag(locationCode, lastUpdated),
+                entry.json());
+    }
+
+    /**
+     * Drops the cached and pending weather of a location that was changed or deleted. Later updates resolve the
+     * location from the database again, so a deleted location is no longer served and rejects updates.
+     */
+    public void evict(String locationCode) {
+        realtimeWeatherWriteBehind.remove(locationCode);
+        realtimeWeatherCache.invalidate(locationCode);
+    }
+
+    public void deleteHistory(String locationCode) {
+        realtimeWeatherHistory.remove(locationCode);
+    }
+
+    /**
+     * @return the samples of the last retention period, oldest first; none for a location that had no updates
+     * since the service started
+     */
+    public RealtimeWeatherHistoryDTO getHistory(String locationCode) throws LocationNotFoundException {
+        RealtimeWeatherHistoryDTO history = realtimeWeatherHistory.get(locationCode, LocalDateTime.now());
+
+        if (history.getSamples().isEmpty()) {
+            findLocation(locationCode);
+        }
+
+        return history;
+    }
+
+    public CacheStats getCacheStats() {
+        return realtimeWeatherCache.stats();
+    }
+
+    private RealtimeWeather findByLocationCode(String locationCode) {
+        RealtimeWeatherCache.Entry entry = findEntry(locationCode);
+
+        return entry != null ? entry.realtimeWeather() : null;
+    }
+
+    private RealtimeWeatherCache.Entry findEntry(String locationCode) {
+        RealtimeWeatherCache.Entry entry = cachedEntry(locationCode);
+
+        if (entry == null) {
+            RealtimeWeather realtimeWeather = realtimeWeatherRepo.findByLocationCode(locationCode);
+
+            if (realtimeWeather != null) {
+                entry = realtimeWeatherCache.putIfAbsent(realtimeWeather);
+            }
+        }
+
+        return entry;
+    }
+
+    // {"locations":{"<code>":<weather>,...},"not_found":["<code>",...]}, in the order of the request
+    private static byte[] writeLocations(Set<String> codes, Map<String, byte[]> found) {
+        JsonStringEncoder encoder = JsonStringEncoder.getInstance();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + found.size() * 256);
+
+        out.writeBytes(LOCATIONS_FIELD);
+        boolean first = true;
+
+        for (String code : codes) {
+            byte[] json = found.get(code);
+
+            if (json != null) {
+                writeString(out, encoder, code, first);
+                out.write(':');
+                out.writeBytes(json);
+                first = false;
+            }
+        }
+
+        out.writeBytes(NOT_FOUND_FIELD);
+        first = true;
+
+        for (String code : codes) {
+            if (!found.containsKey(code)) {
+                writeString(out, encoder, code, first);
+                first = false;
+            }
+        }
+
+        out.write(']');
+        out.write('}');
+
+        return out.toByteArray();
+    }
+
+    private static void writeString(ByteArrayOutputStream out, JsonStringEncoder encoder, String value, boolean first) {
+        if (!first) {
+            out.write(',');
         }
 
-        return realtimeWeatherRepo.save(realtimeWeather);
+        out.write('"');
+        out.writeBytes(encoder.quoteAsUTF8(value));
+        out.write('"');
+    }
+
+    private Location findLocation(String locationCode) {
+        RealtimeWeatherCache.Entry entry = cachedEntry(locationCode);
+        Location location = entry != null ? entry.realtimeWeather().getLocation() : locationRepo.findByCode(locationCode);
+
+        if (location == null || location.isTrashed()) {
+            throw new LocationNotFoundException("No location found with the given code: " + locationCode);
+        }
+
+        return location;
+    }
+
+    // a pending write-behind update is newer than anything cached or stored
+    private RealtimeWeatherCache.Entry cachedEntry(String locationCode) {
+        RealtimeWeatherCache.Entry entry = realtimeWeatherWriteBehind.get(locationCode);
+
+        return entry != null ? entry : realtimeWeatherCache.get(locationCode);
     }
 }
@@ -0,0 +1,153 @@
+package com.skyapi.weatherforecast.realtime.service;
+
+import com.skyapi.weatherforecast.common.RealtimeWeather;
+import com.skyapi.weatherforecast.realtime.config.RealtimeWeatherProperties;
+import com.skyapi.weatherforecast.realtime.dto.RealtimeWeatherWriteBehindStatsDTO;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pending realtime weather updates, one slot per location holding only its latest update.
+ * Slots are served to readers right away and written to the database in batches by a scheduled flush;
+ * a slot is only cleared once its value is written, and only if no newer update replaced it meanwhile.
+ */
+@Component
+public class RealtimeWeatherWriteBehind {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RealtimeWeatherWriteBehind.class);
+
+    private final RealtimeWeatherBulkWriter bulkWriter;
+
+    private final boolean enabled;
+
+    private final int batchSize;
+
+    private final Map<String, RealtimeWeatherCache.Entry> slots = new ConcurrentHashMap<>();
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+
+    public RealtimeWeatherWriteBehind(RealtimeWeatherBulkWriter bulkWriter, RealtimeWeatherProperties properties) {
+        this.bulkWriter = bulkWriter;
+        this.enabled = properties.getWriteBehind().isEnabled();
+        this.batchSize = Math.max(1, properties.getWriteBehind().getBatchSize());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void put(RealtimeWeatherCache.Entry entry) {
+        accepted.increment();
+
+        if (slots.put(entry.realtimeWeather().getLocationCode(), entry) != null) {
+            coalesced.increment();
+        }
+    }
+
+    /**
+     * @return the pending update of the location, or null if everything is written
+     */
+    public RealtimeWeatherCache.Entry get(String locationCode) {
+        return slots.get(locationCode);
+    }
+
+    /**
+     * Drops a pending update that a direct write made at {@code writtenAt} has superseded.
+     */
+    public void discard(String locationCode, LocalDateTime writtenAt) {
+        slots.computeIfPresent(locationCode, (code, entry) ->
+                entry.realtimeWeather().getLastUpdated().isAfter(writtenAt) ? entry : null);
+    }
+
+    /**
+     * Drops the pending update of a location that was changed or deleted, so it is neither served nor written.
+     */
+    public void remove(String locationCode) {
+        slots.remove(locationCode);
+    }
+
+    @Scheduled(initialDelayString = "${realtime.write-behind.flush-interval:PT1S}",
+            fixedDelayString = "${realtime.write-behind.flush-interval:PT1S}")
+    public void scheduledFlush() {
+        if (enabled) {
+            flush();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void flush() {
+        if (slots.isEmpty()) {
+            return;
+        }
+
+        flushes.increment();
+
+        List<RealtimeWeatherCache.Entry> batch = new ArrayList<>(Math.min(batchSize, slots.size()));
+
+        for (RealtimeWeatherCache.Entry entry : slots.values()) {
+            batch.add(entry);
+
+            if (batch.size() == batchSize) {
+                write(batch);
+                batch.clear();
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    public RealtimeWeatherWriteBehindStatsDTO stats() {
+        return RealtimeWeatherWriteBehindStatsDTO.builder()
+                .enabled(enabled)
+                .pending(slots.size())
+                .accepted(accepted.sum())
+                .coalesced(coalesced.sum())
+                .written(written.sum())
+                .dropped(dropped.sum())
+                .flushes(flushes.sum())
+                .failedFlushes(failedFlushes.sum())
+                .build();
+    }
+
+    private void write(List<RealtimeWeatherCache.Entry> batch) {
+        Map<String, String> statuses;
+
+        try {
+            statuses = bulkWriter.writeAll(batch.stream().map(RealtimeWeatherCache.Entry::realtimeWeather).toList());
+        } catch (RuntimeException ex) {
+            // the slots stay, so the next flush retries them
+            failedFlushes.increment();
+            LOGGER.error("Failed to write " + batch.size() + " realtime weather updates: " + ex.getMessage(), ex);
+            return;
+        }
+
+        for (RealtimeWeatherCache.Entry entry : batch) {
+            RealtimeWeather realtimeWeather = entry.realtimeWeather();
+
+            if (statuses.containsKey(realtimeWeather.getLocationCode())) {
+                written.increment();
+            } else {
+                dropped.increment();
+            }
+
+            slots.computeIfPresent(realtimeWeather.getLocationCode(), (code, current) -> current == entry ? null : current);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.skyapi.weatherforecast.base;
+
+import com.skyapi.weatherforecast.common.HourlyWeather;
+import com.skyapi.weatherforecast.common.Location;
+import com.skyapi.weatherforecast.common.RealtimeWeather;
+
+/**
+ * Locations and weather shared by the tests, so each test only spells out the values it checks.
+ */
+public final class TestFixtures {
+
+    private TestFixtures() {
+    }
+
+    public static Location newYork() {
+        return Location.builder()
+                .code("NYC_USA")
+                .cityName("New York City")
+                .regionName("New York")
+                .countryCode("US")
+                .countryName("United States of America")
+                .enabled(true)
+                .build();
+    }
+
+    /**
+     * @return an enabled location with only the columns the database requires
+     */
+    public static Location location(String code, String cityName) {
+        return Location.builder()
+                .code(code)
+                .cityName(cityName)
+                .countryCode("US")
+                .countryName("United States of America")
+                .enabled(true)
+                .build();
+    }
+
+    /**
+     * @param location the location of the forecast, or null when the writer resolves it
+     */
+    public static HourlyWeather hour(Location location, int hourOfDay, int temperature, String status) {
+        return new HourlyWeather()
+                .location(location)
+                .hourOfDay(hourOfDay)
+                .temperature(temperature)
+                .precipitation(10)
+                .status(status);
+    }
+
+    public static RealtimeWeather realtimeWeather(String locationCode, int temperature) {
+        return RealtimeWeather.builder()
+                .locationCode(locationCode)
+                .temperature(temperature)
+                .humidity(40)
+                .precipitation(10)
+                .windSpeed(5)
+                .status("Sunny")
+                .build();
+    }
+}
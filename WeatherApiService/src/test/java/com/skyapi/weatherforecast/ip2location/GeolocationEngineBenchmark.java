@@ -0,0 +1,85 @@
+package com.skyapi.weatherforecast.ip2location;
+
+import com.ip2location.IP2Location;
+import com.skyapi.weatherforecast.common.Location;
+import com.skyapi.weatherforecast.location.geolocation.IndexedGeolocationEngine;
+import com.skyapi.weatherforecast.location.geolocation.LibraryGeolocationEngine;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@code IP2Location.IPQuery} with the indexed engine.
+ * <p>
+ * Run with {@code -Dip2location.db=/path/to/IP2LOCATION-LITE-DB3.BIN} to benchmark against the real database;
+ * without it the small generated test database is used.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeolocationEngineBenchmark {
+
+    private static final int ADDRESS_COUNT = 1024;
+
+    private IP2Location ipLocator;
+    private IndexedGeolocationEngine indexedEngine;
+
+    private String[] ipAddresses;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        String databasePath = System.getProperty("ip2location.db");
+
+        byte[] data = databasePath != null
+                ? Files.readAllBytes(Path.of(databasePath))
+                : IP2LocationTestDatabase.sample().toBytes();
+
+        ipLocator = new IP2Location();
+        ipLocator.Open(data);
+
+        indexedEngine = IndexedGeolocationEngine.build(ByteBuffer.wrap(data), new LibraryGeolocationEngine(ipLocator, 0, 0));
+
+        Random random = new Random(42);
+        ipAddresses = new String[ADDRESS_COUNT];
+
+        for (int i = 0; i < ADDRESS_COUNT; i++) {
+            ipAddresses[i] = (1 + random.nextInt(223)) + "." + random.nextInt(256) + "."
+                    + random.nextInt(256) + "." + random.nextInt(256);
+        }
+    }
+
+    @Benchmark
+    public Object libraryQuery() throws IOException {
+        return ipLocator.IPQuery(nextAddress());
+    }
+
+    @Benchmark
+    public Location indexedLookup() {
+        return indexedEngine.lookup(nextAddress());
+    }
+
+    private String nextAddress() {
+        return ipAddresses[next++ & (ADDRESS_COUNT - 1)];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(GeolocationEngineBenchmark.class.getSimpleName())
+                .build();
+
+        new Runner(options).run();
+    }
+}
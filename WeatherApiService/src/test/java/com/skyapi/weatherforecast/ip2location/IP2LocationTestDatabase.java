@@ -0,0 +1,110 @@
+package com.skyapi.weatherforecast.ip2location;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes small IP2Location DB3 (country, region, city) BIN files for tests,
+ * since the real database is not bundled with the test sources.
+ */
+public class IP2LocationTestDatabase {
+
+    private static final int HEADER_SIZE = 64;
+    private static final int COLUMNS = 4;
+
+    private final List<Long> rangeStarts = new ArrayList<>();
+    private final List<String[]> records = new ArrayList<>();
+
+    public IP2LocationTestDatabase range(String fromIpAddress, String countryCode, String countryName,
+                                         String regionName, String cityName) {
+        rangeStarts.add(toNumber(fromIpAddress));
+        records.add(new String[]{countryCode, countryName, regionName, cityName});
+        return this;
+    }
+
+    public static IP2LocationTestDatabase sample() {
+        return new IP2LocationTestDatabase()
+                .range("0.0.0.0", "-", "-", "-", "-")
+                .range("1.0.0.0", "US", "United States of America", "New York", "New York City")
+                .range("103.48.198.0", "IN", "India", "Delhi", "Delhi")
+                .range("103.48.199.0", "US", "United States of America", "New York", "New York City")
+                .range("177.0.0.0", "BR", "Brazil", "Sao Paulo", "São Paulo")
+                .range("178.0.0.0", "DE", "Germany", "Hessen", "Frankfurt am Main")
+                .range("179.0.0.0", "-", "-", "-", "-");
+    }
+
+    public byte[] toBytes() throws IOException {
+        int rows = rangeStarts.size() + 1;
+        int stringsBase = HEADER_SIZE + rows * COLUMNS * 4;
+
+        ByteBuffer rowBuffer = ByteBuffer.allocate(rows * COLUMNS * 4).order(ByteOrder.LITTLE_ENDIAN);
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+
+        for (int i = 0; i < rows; i++) {
+            boolean sentinel = i == rangeStarts.size();
+            String[] record = sentinel ? new String[]{"-", "-", "-", "-"} : records.get(i);
+
+            rowBuffer.putInt((int) (sentinel ? 4294967295L : rangeStarts.get(i)));
+
+            rowBuffer.putInt(stringsBase + strings.size());
+            writeString(strings, record[0], 3);
+            writeString(strings, record[1], 0);
+
+            rowBuffer.putInt(stringsBase + strings.size());
+            writeString(strings, record[2], 0);
+
+            rowBuffer.putInt(stringsBase + strings.size());
+            writeString(strings, record[3], 0);
+        }
+
+        int fileSize = stringsBase + strings.size();
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(0, (byte) 3);
+        header.put(1, (byte) COLUMNS);
+        header.put(2, (byte) 23);
+        header.put(3, (byte) 1);
+        header.put(4, (byte) 1);
+        header.putInt(5, rows);
+        header.putInt(9, HEADER_SIZE + 1);
+        header.putInt(17, stringsBase + 1);
+        header.put(29, (byte) 1);
+        header.putInt(31, fileSize);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(fileSize);
+        out.write(header.array());
+        out.write(rowBuffer.array());
+        out.write(strings.toByteArray());
+
+        return out.toByteArray();
+    }
+
+    public Path writeTo(Path file) throws IOException {
+        return Files.write(file, toBytes());
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value, int paddedLength) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.write(bytes.length);
+        out.write(bytes, 0, bytes.length);
+
+        for (int i = bytes.length + 1; i < paddedLength; i++) {
+            out.write(0);
+        }
+    }
+
+    private static long toNumber(String ipAddress) {
+        long number = 0;
+        for (String octet : ipAddress.split("\\.")) {
+            number = (number << 8) | Integer.parseInt(octet);
+        }
+        return number;
+    }
+}
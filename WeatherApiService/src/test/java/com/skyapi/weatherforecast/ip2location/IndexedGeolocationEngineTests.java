@@ -0,0 +1,92 @@
+package com.skyapi.weatherforecast.ip2location;
+
+import com.ip2location.IP2Location;
+import com.ip2location.IPResult;
+import com.skyapi.weatherforecast.common.Location;
+import com.skyapi.weatherforecast.exception.GeolocationException;
+import com.skyapi.weatherforecast.location.geolocation.IndexedGeolocationEngine;
+import com.skyapi.weatherforecast.location.geolocation.LibraryGeolocationEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class IndexedGeolocationEngineTests {
+
+    private IP2Location ipLocator;
+    private IndexedGeolocationEngine engine;
+
+    @BeforeEach
+    void setup() throws IOException {
+        byte[] data = IP2LocationTestDatabase.sample().toBytes();
+
+        ipLocator = new IP2Location();
+        ipLocator.Open(data);
+
+        engine = IndexedGeolocationEngine.build(ByteBuffer.wrap(data), new LibraryGeolocationEngine(ipLocator, 7, 0));
+    }
+
+    @Test
+    public void testRecordsAreDeduplicated() {
+        assertThat(engine.getEntryCount()).isEqualTo(7);
+        assertThat(engine.getRecordCount()).isEqualTo(5);
+    }
+
+    @Test
+    public void testLookupMatchesLibrary() throws IOException {
+        Random random = new Random(42);
+
+        for (int i = 0; i < 10_000; i++) {
+            long ipNumber = random.nextLong(1L << 32);
+            String ipAddress = (ipNumber >>> 24) + "." + ((ipNumber >>> 16) & 0xFF) + "."
+                    + ((ipNumber >>> 8) & 0xFF) + "." + (ipNumber & 0xFF);
+
+            assertSameAsLibrary(ipAddress);
+        }
+
+        assertSameAsLibrary("0.0.0.0");
+        assertSameAsLibrary("103.48.198.0");
+        assertSameAsLibrary("103.48.198.255");
+        assertSameAsLibrary("103.48.199.0");
+        assertSameAsLibrary("255.255.255.255");
+        assertSameAsLibrary("::ffff:103.48.198.141");
+    }
+
+    @Test
+    public void testLookupReturnsSharedRecord() {
+        Location first = engine.lookup("108.30.178.78");
+        Location second = engine.lookup("1.2.3.4");
+
+        assertThat(first).isSameAs(second);
+        assertThat(first).isSameAs(engine.getRecord(engine.lookupRecordIndex("1.2.3.4")));
+        assertThat(first.getCityName()).isEqualTo("New York City");
+    }
+
+    @Test
+    public void testInvalidIPAddressThrowsGeolocationException() {
+        assertThatThrownBy(() -> engine.lookup("abc")).isInstanceOf(GeolocationException.class);
+        assertThatThrownBy(() -> engine.lookup("256.1.1.1")).isInstanceOf(GeolocationException.class);
+        assertThatThrownBy(() -> engine.lookup("1.2.3")).isInstanceOf(GeolocationException.class);
+        assertThatThrownBy(() -> engine.lookup("1.2.3.4.5")).isInstanceOf(GeolocationException.class);
+    }
+
+    private void assertSameAsLibrary(String ipAddress) throws IOException {
+        IPResult expected = ipLocator.IPQuery(ipAddress);
+        Location actual = engine.lookup(ipAddress);
+
+        assertThat(expected.getStatus()).isEqualTo("OK");
+        assertThat(actual.getCountryCode()).as(ipAddress).isEqualTo(expected.getCountryShort());
+        assertThat(actual.getCountryName()).as(ipAddress).isEqualTo(expected.getCountryLong());
+        assertThat(actual.getRegionName()).as(ipAddress).isEqualTo(expected.getRegion());
+
+        if (!"BR".equals(actual.getCountryCode())) {
+            // the library decodes names with the platform charset
+            assertThat(actual.getCityName()).as(ipAddress).isEqualTo(expected.getCity());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.skyapi.weatherforecast.location.controller;
+
+import com.skyapi.weatherforecast.base.BaseRestControllerTest;
+import com.skyapi.weatherforecast.common.Location;
+import com.skyapi.weatherforecast.exception.GeolocationException;
+import com.skyapi.weatherforecast.location.service.GeolocationService;
+import com.skyapi.weatherforecast.location.service.LocationCodeIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class GeolocationApiControllerTests extends BaseRestControllerTest {
+
+    private static final String END_POINT_PATH = "/v1/geolocation/batch";
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @MockBean
+    GeolocationService geolocationService;
+
+    @MockBean
+    LocationCodeIndex locationCodeIndex;
+
+    private final Location newYork = Location.builder()
+            .cityName("New York City")
+            .regionName("New York")
+            .countryCode("US")
+            .countryName("United States of America")
+            .build();
+
+    @Test
+    public void testBatchShouldResolveEachDistinctAddressOnce() throws Exception {
+        when(geolocationService.getLocationUncached("1.1.1.1")).thenReturn(newYork);
+        when(geolocationService.getLocationUncached("2.2.2.2")).thenReturn(newYork);
+        when(locationCodeIndex.findCode("US", "New York City")).thenReturn("NYC_USA");
+
+        String body = mockMvc.perform(post(END_POINT_PATH)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"1.1.1.1\", \"2.2.2.2\", \" 1.1.1.1 \"]"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andDo(print())
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).contains("\"ip\":\"1.1.1.1\"", "\"status\":\"OK\"", "\"location_code\":\"NYC_USA\"");
+        assertThat(lines[1]).contains("\"ip\":\"2.2.2.2\"", "\"location_code\":\"NYC_USA\"");
+
+        verify(geolocationService, times(1)).getLocationUncached("1.1.1.1");
+    }
+
+    @Test
+    public void testBatchShouldAcceptNdjsonAndReportFailuresPerLine() throws Exception {
+        when(geolocationService.getLocationUncached("1.1.1.1")).thenReturn(newYork);
+        when(geolocationService.getLocationUncached("abc"))
+                .thenThrow(new GeolocationException("Geolocation failed with status: INVALID_IP_ADDRESS"));
+
+        String body = mockMvc.perform(post(END_POINT_PATH)
+                        .contentType("application/x-ndjson")
+                        .content("\"1.1.1.1\"\n\"abc\"\nnot-json\n"))
+                .andExpect(status().isOk())
+                .andDo(print())
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).contains("\"status\":\"OK\"").doesNotContain("location_code");
+        assertThat(lines[1]).contains("\"ip\":\"abc\"", "\"status\":\"FAILED\"", "INVALID_IP_ADDRESS");
+        assertThat(lines[2]).contains("\"status\":\"FAILED\"", "Line 3");
+    }
+
+    @Test
+    public void testBatchShouldReturn400BadRequestWhenBodyIsNotAnArray() throws Exception {
+        mockMvc.perform(post(END_POINT_PATH)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ip\": \"1.1.1.1\"}"))
+                .andExpect(status().isBadRequest())
+                .andDo(print());
+    }
+}
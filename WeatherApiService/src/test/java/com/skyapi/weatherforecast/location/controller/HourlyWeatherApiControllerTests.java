@@ -7,7 +7,10 @@ import com.skyapi.weatherforecast.common.HourlyWeatherId;
 import com.skyapi.weatherforecast.common.Location;
 import com.skyapi.weatherforecast.exception.GeolocationException;
 import com.skyapi.weatherforecast.exception.LocationNotFoundException;
+import com.skyapi.weatherforecast.hourly.dto.HourlyForecastChangesDTO;
 import com.skyapi.weatherforecast.hourly.dto.HourlyWeatherDTO;
+import com.skyapi.weatherforecast.hourly.service.HourlyForecastResponseCache;
+import com.skyapi.weatherforecast.hourly.service.HourlyForecastUpdate;
 import com.skyapi.weatherforecast.location.service.GeolocationService;
 import com.skyapi.weatherforecast.hourly.service.HourlyWeatherService;
 import org.junit.jupiter.api.Test;
@@ -24,6 +27,8 @@ import java.util.List;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
@@ -42,6 +47,9 @@ public class HourlyWeatherApiControllerTests extends BaseRestControllerTest {
     @Autowired
     ObjectMapper objectMapper;
 
+    @Autowired
+    HourlyForecastResponseCache responseCache;
+
     @MockBean
     HourlyWeatherService hourlyWeatherService;
 
@@ -85,8 +93,9 @@ public class HourlyWeatherApiControllerTests extends BaseRestControllerTest {
         List<HourlyWeather> hourlyForecastList = List.of(hourlyWeather1,hourlyWeather2);
 
         // when
-        when(locationService.getLocation(eq(ipAddress))).thenReturn(location);
-        when(hourlyWeatherService.getByLocation(eq(location), eq(currentHour))).thenReturn(hourlyForecastList);
+        when(locationService.getLocationCode(eq(ipAddress))).thenReturn(location.getCode());
+        when(hourlyWeatherService.getJsonByLocationCode(eq(location.getCode()), eq(currentHour)))
+                .thenReturn(responseCache.serialize(hourlyForecastList));
 
 
         MockHttpServletRequestBuilder requestBuilder = get(END_POINT_PATH)
@@ -120,7 +129,7 @@ public class HourlyWeatherApiControllerTests extends BaseRestControllerTest {
     public void testGetByIPShouldReturn400BadRequestBecauseGeolocationException() throws Exception {
 
         GeolocationException ex = new GeolocationException("Geolocation error");
-        when(locationService.getLocation(anyString())).thenThrow(ex);
+        when(locationService.getLocationCode(anyString())).thenThrow(ex);
 
         mockMvc.perform(get(END_POINT_PATH).header(X_CURRENT_HOUR, "9"))
                 .andExpect(status().isBadRequest())
@@ -134,8 +143,8 @@ public class HourlyWeatherApiControllerTests extends BaseRestControllerTest {
         int currentHour = 9;
         LocationNotFoundException ex = new LocationNotFoundException(location.getCode());
 
-        when(locationService.getLocation(anyString())).thenReturn(location);
-        when(hourlyWeatherService.getByLocation(location, currentHour)).thenThrow(ex);
+        when(locationService.getLocationCode(anyString())).thenReturn(location.getCode());
+        when(hourlyWeatherService.getJsonByLocationCode(location.getCode(), currentHour)).thenThrow(ex);
 
         mockMvc.perform(get(END_POINT_PATH).header(X_CURRENT_HOUR, String.valueOf(currentHour)))
                 .andExpect(status().isNotFound())
@@ -160,7 +169,7 @@ public class HourlyWeatherApiControllerTests extends BaseRestControllerTest {
         String requestURI = END_POINT_PATH + "/" + locationCode;
         LocationNotFoundException ex = new LocationNotFoundException(locationCode);
 
-        when(hourlyWeatherService.getByLocationCode(locationCode, currentHour)).thenThrow(ex);
+        when(hourlyWeatherService.getJsonByLocationCode(locationCode, currentHour)).thenThrow(ex);
 
         mockMvc.perform(get(requestURI).header(X_CURRENT_HOUR, String.valueOf(currentHour)))
                 .andExpect(status().isNotFound())
@@ -174,7 +183,7 @@ public class HourlyWeatherApiControllerTests extends BaseRestControllerTest {
         String locationCode = "DELHI_IN";
         String requestURI = END_POINT_PATH + "/" + locationCode;
 
-        when(hourlyWeatherService.getByLocationCode(locationCode, currentHour)).thenReturn(Collections.emptyList());
+        when(hourlyWeatherService.getJsonByLocationCode(locationCode, currentHour)).thenReturn(null);
 
         mockMvc.perform(get(requestURI).header(X_CURRENT_HOUR, String.valueOf(currentHour)))
                 .andExpect(status().isNoContent())
@@ -213,7 +222,8 @@ public class HourlyWeatherApiControllerTests extends BaseRestControllerTest {
 
         List<HourlyWeather> hourlyForecastList = List.of(hourlyWeather1,hourlyWeather2);
 
-        when(hourlyWeatherService.getByLocationCode(locationCode, currentHour)).thenReturn(hourlyForecastList);
+        when(hourlyWeatherService.getJsonByLocationCode(locationCode, currentHour))
+                .thenReturn(responseCache.serialize(hourlyForecastList));
 
         mockMvc.perform(get(requestURI).header(X_CURRENT_HOUR, String.valueOf(currentHour)))
                 .andExpect(status().isOk())
@@ -224,6 +234,26 @@ public class HourlyWeatherApiControllerTests extends BaseRestControllerTest {
                 .andDo(print());
     }
 
+    @Test
+    public void testGetByCodeShouldReturn304NotModifiedWhenETagMatches() throws Exception {
+        int currentHour = 11;
+        String locationCode = "NYC_USA";
+        String requestURI = END_POINT_PATH + "/" + locationCode;
+        String eTag = "\"NYC_USA-3f2a-11\"";
+
+        when(hourlyWeatherService.getETag(locationCode, currentHour)).thenReturn(eTag);
+
+        mockMvc.perform(get(requestURI)
+                        .header(X_CURRENT_HOUR, String.valueOf(currentHour))
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""))
+                .andDo(print());
+
+        verify(hourlyWeatherService, never()).getJsonByLocationCode(anyString(), anyInt());
+    }
+
     @Test
     public void testUpdateShouldReturn400BadRequestBecauseNoData() throws Exception {
         String requestURI = END_POINT_PATH + "/NYC_USA";
@@ -346,13 +376,16 @@ public class HourlyWeatherApiControllerTests extends BaseRestControllerTest {
         String requestBody = objectMapper.writeValueAsString(listDTO);
 
         when(hourlyWeatherService.updateByLocationCode(eq(locationCode), anyList()))
-                .thenReturn(hourlyForecast);
+                .thenReturn(new HourlyForecastUpdate(location, hourlyForecast,
+                        HourlyForecastChangesDTO.builder().inserted(1).updated(1).build()));
 
 
         mockMvc.perform(put(requestURI).contentType(MediaType.APPLICATION_JSON).content(requestBody))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.location", is(location.toString())))
                 .andExpect(jsonPath("$.hourly_forecast[0].hour_of_day", is(10)))
+                .andExpect(jsonPath("$.changes.inserted", is(1)))
+                .andExpect(jsonPath("$.changes.unchanged", is(0)))
                 .andDo(print());
     }
 }
@@ -13,14 +13,20 @@ import org.junit.jupiter.api.Test;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -50,7 +56,7 @@ public class RealtimeWeatherApiControllerTests extends BaseRestControllerTest {
     public void testGetShouldReturnStatus400BadRequest() throws Exception {
 
         GeolocationException ex = new GeolocationException("Geolocation error");
-        when(locationService.getLocation(anyString())).thenThrow(ex);
+        when(locationService.getLocationCode(anyString())).thenThrow(ex);
 
         mockMvc.perform(get(END_POINT_PATH))
                 .andExpect(status().isBadRequest())
@@ -67,8 +73,7 @@ public class RealtimeWeatherApiControllerTests extends BaseRestControllerTest {
 
         LocationNotFoundException ex = new LocationNotFoundException(location.getCountryCode(), location.getCityName());
 
-        when(locationService.getLocation(anyString())).thenReturn(location);
-        when(realtimeWeatherService.getByLocation(location)).thenThrow(ex);
+        when(locationService.getLocationCode(anyString())).thenThrow(ex);
 
         mockMvc.perform(get(END_POINT_PATH))
                 .andExpect(status().isNotFound())
@@ -112,8 +117,8 @@ public class RealtimeWeatherApiControllerTests extends BaseRestControllerTest {
         location.setRealtimeWeather(realtimeWeather);
 
 
-        when(locationService.getLocation(anyString())).thenReturn(location);
-        when(realtimeWeatherService.getByLocation(location)).thenReturn(realtimeWeather);
+        when(locationService.getLocationCode(anyString())).thenReturn(location.getCode());
+        when(realtimeWeatherService.getByLocationCode(location.getCode())).thenReturn(realtimeWeather);
         when(modelMapper.map(realtimeWeather, RealtimeWeatherDTO.class)).thenReturn(realtimeWeatherDTO);
 
         String expectedLocation = location.getCityName() + ", " + location.getRegionName() + ", " + location.getCountryName();
@@ -130,7 +135,7 @@ public class RealtimeWeatherApiControllerTests extends BaseRestControllerTest {
         String locationCode = "ABC_US";
 
         LocationNotFoundException ex = new LocationNotFoundException(locationCode);
-        when(realtimeWeatherService.getByLocationCode(locationCode)).thenThrow(ex);
+        when(realtimeWeatherService.getJsonByLocationCode(locationCode)).thenThrow(ex);
 
         String requestURI = END_POINT_PATH + "/" + locationCode;
 
@@ -177,8 +182,9 @@ public class RealtimeWeatherApiControllerTests extends BaseRestControllerTest {
         location.setRealtimeWeather(realtimeWeather);
 
 
-        when(realtimeWeatherService.getByLocationCode(locationCode)).thenReturn(realtimeWeather);
-        when(modelMapper.map(realtimeWeather, RealtimeWeatherDTO.class)).thenReturn(realtimeWeatherDTO);
+        byte[] json = mapper.writeValueAsBytes(realtimeWeatherDTO);
+
+        when(realtimeWeatherService.getJsonByLocationCode(locationCode)).thenReturn(json);
 
         String expectedLocation = location.getCityName() + ", " + location.getRegionName() + ", " + location.getCountryName();
 
@@ -187,11 +193,45 @@ public class RealtimeWeatherApiControllerTests extends BaseRestControllerTest {
         mockMvc.perform(get(requestURI))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType("application/json"))
+                .andExpect(header().longValue("Content-Length", json.length))
                 .andExpect(jsonPath("$.location", is(expectedLocation)))
                 .andDo(print());
     }
 
 
+    @Test
+    public void testGetByLocationCodesShouldReturnStatus200OK() throws Exception {
+        byte[] json = "{\"locations\":{\"NYC_USA\":{\"temperature\":12}},\"not_found\":[\"ABC_XY\"]}"
+                .getBytes(StandardCharsets.UTF_8);
+
+        when(realtimeWeatherService.getJsonByLocationCodes(List.of("NYC_USA", "ABC_XY"))).thenReturn(json);
+
+        mockMvc.perform(get(END_POINT_PATH).param("codes", "NYC_USA,ABC_XY"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/json"))
+                .andExpect(jsonPath("$.locations.NYC_USA.temperature", is(12)))
+                .andExpect(jsonPath("$.not_found[0]", is("ABC_XY")))
+                .andDo(print());
+
+        verify(locationService, never()).getLocationCode(anyString());
+    }
+
+    @Test
+    public void testGetByLocationCodeShouldReturn304NotModifiedWhenETagMatches() throws Exception {
+        String locationCode = "SFCA_USA";
+        String eTag = "\"SFCA_USA-175a0e2c1d3b8000\"";
+
+        when(realtimeWeatherService.getETag(locationCode)).thenReturn(eTag);
+
+        mockMvc.perform(get(END_POINT_PATH + "/" + locationCode).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""))
+                .andDo(print());
+
+        verify(realtimeWeatherService, never()).getJsonByLocationCode(locationCode);
+    }
+
     @Test
     public void testUpdateShouldReturn400BadRequest() throws Exception {
         String locationCode = "ABC_US";
@@ -0,0 +1,61 @@
+package com.skyapi.weatherforecast.location.controller;
+
+import com.skyapi.weatherforecast.base.BaseRestControllerTest;
+import com.skyapi.weatherforecast.base.TestFixtures;
+import com.skyapi.weatherforecast.exception.LocationNotFoundException;
+import com.skyapi.weatherforecast.location.repository.LocationRepository;
+import com.skyapi.weatherforecast.location.service.LocationService;
+import com.skyapi.weatherforecast.realtime.service.RealtimeWeatherService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// no flush runs during the test, so updates stay pending in the write-behind slots
+@TestPropertySource(properties = {
+        "realtime.write-behind.enabled=true",
+        "realtime.write-behind.flush-interval=PT1H"
+})
+public class RealtimeWeatherWriteBehindApiTests extends BaseRestControllerTest {
+
+    private static final String END_POINT_PATH = "/v1/realtime";
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    LocationRepository locationRepo;
+
+    @Autowired
+    LocationService locationService;
+
+    @Autowired
+    RealtimeWeatherService realtimeWeatherService;
+
+    @Test
+    public void testDeletedLocationIsNotServedFromPendingUpdate() throws Exception {
+        String locationCode = "WB_DELETE";
+
+        locationRepo.save(TestFixtures.location(locationCode, "Write Behind City"));
+
+        realtimeWeatherService.update(locationCode, TestFixtures.realtimeWeather(locationCode, 12));
+
+        mockMvc.perform(get(END_POINT_PATH + "/" + locationCode))
+                .andExpect(status().isOk())
+                .andDo(print());
+
+        locationService.delete(locationCode);
+
+        mockMvc.perform(get(END_POINT_PATH + "/" + locationCode))
+                .andExpect(status().isNotFound())
+                .andDo(print());
+
+        assertThrows(LocationNotFoundException.class,
+                () -> realtimeWeatherService.update(locationCode, TestFixtures.realtimeWeather(locationCode, 13)));
+    }
+}
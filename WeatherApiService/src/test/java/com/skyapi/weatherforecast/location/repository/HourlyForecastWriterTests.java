@@ -0,0 +1,77 @@
+package com.skyapi.weatherforecast.location.repository;
+
+import com.skyapi.weatherforecast.base.BaseRepositoryTests;
+import com.skyapi.weatherforecast.base.TestFixtures;
+import com.skyapi.weatherforecast.common.HourlyWeather;
+import com.skyapi.weatherforecast.hourly.dto.HourlyForecastChangesDTO;
+import com.skyapi.weatherforecast.hourly.repository.HourlyWeatherRepository;
+import com.skyapi.weatherforecast.hourly.service.HourlyForecastUpdate;
+import com.skyapi.weatherforecast.hourly.service.HourlyForecastWriter;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(HourlyForecastWriter.class)
+public class HourlyForecastWriterTests extends BaseRepositoryTests {
+
+    private static final String LOCATION_CODE = "DIFF_TEST";
+
+    @Autowired
+    private HourlyForecastWriter writer;
+
+    @Autowired
+    private LocationRepository locationRepo;
+
+    @Autowired
+    private HourlyWeatherRepository hourlyWeatherRepo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    public void testWriteAppliesPerHourDiff() {
+        locationRepo.save(TestFixtures.location(LOCATION_CODE, "Diff City"));
+        flushAndClear();
+
+        writer.write(Map.of(LOCATION_CODE, List.of(hour(8, 10, "Sunny"), hour(9, 11, "Sunny"), hour(10, 12, "Cloudy"))));
+        flushAndClear();
+
+        HourlyForecastUpdate update = writer.write(Map.of(LOCATION_CODE,
+                List.of(hour(9, 11, "Sunny"), hour(10, 14, "Rainy"), hour(11, 15, "Rainy")))).get(LOCATION_CODE);
+        flushAndClear();
+
+        assertThat(update.changes()).isEqualTo(HourlyForecastChangesDTO.builder()
+                .inserted(1)
+                .updated(1)
+                .deleted(1)
+                .unchanged(1)
+                .build());
+
+        assertThat(update.hourlyForecast()).extracting(hourlyWeather -> hourlyWeather.getId().getHourOfDay())
+                .containsExactly(9, 10, 11);
+
+        List<HourlyWeather> stored = hourlyWeatherRepo.findByLocationCode(LOCATION_CODE, -1);
+
+        assertThat(stored).extracting(HourlyWeather::getTemperature).containsExactlyInAnyOrder(11, 14, 15);
+    }
+
+    @Test
+    public void testWriteSkipsUnknownLocation() {
+        assertThat(writer.write(Map.of("ABC_XY", List.of(hour(9, 11, "Sunny"))))).isEmpty();
+    }
+
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static HourlyWeather hour(int hourOfDay, int temperature, String status) {
+        return TestFixtures.hour(null, hourOfDay, temperature, status);
+    }
+}
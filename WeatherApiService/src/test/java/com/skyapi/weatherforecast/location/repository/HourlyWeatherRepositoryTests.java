@@ -4,9 +4,14 @@ import com.skyapi.weatherforecast.base.BaseRepositoryTests;
 import com.skyapi.weatherforecast.common.HourlyWeather;
 import com.skyapi.weatherforecast.common.HourlyWeatherId;
 import com.skyapi.weatherforecast.common.Location;
+import com.skyapi.weatherforecast.hourly.repository.HourlyForecastRow;
 import com.skyapi.weatherforecast.hourly.repository.HourlyWeatherRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.TestPropertySource;
 
 import java.util.List;
 import java.util.Optional;
@@ -14,11 +19,15 @@ import java.util.Optional;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 public class HourlyWeatherRepositoryTests extends BaseRepositoryTests {
 
     @Autowired
     private HourlyWeatherRepository repo;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Test
     public void testAdd() {
         String locationCode = "NYC_USA";
@@ -74,4 +83,48 @@ public class HourlyWeatherRepositoryTests extends BaseRepositoryTests {
 
         assertThat(hourlyForecast).isEmpty();
     }
+
+    @Test
+    public void testFindRowsByLocationCodeExecutesOneStatement() {
+        Location location = entityManager.persist(Location.builder()
+                .code("ROWS_TEST")
+                .cityName("Rows City")
+                .regionName("Rows Region")
+                .countryCode("US")
+                .countryName("United States of America")
+                .enabled(true)
+                .build());
+
+        for (int hourOfDay : new int[] {12, 8, 10}) {
+            entityManager.persist(new HourlyWeather()
+                    .id(location, hourOfDay)
+                    .temperature(hourOfDay + 5)
+                    .precipitation(60)
+                    .status("Cloudy"));
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        repo.findByLocationCode("ROWS_TEST", 9);
+
+        // the entity query also selects the location and its realtime weather
+        assertThat(statistics.getPrepareStatementCount()).isGreaterThan(1);
+
+        entityManager.clear();
+        statistics.clear();
+
+        List<HourlyForecastRow> rows = repo.findRowsByLocationCode("ROWS_TEST", 9);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+
+        assertThat(rows).extracting(HourlyForecastRow::hourOfDay).containsExactly(10, 12);
+        assertThat(rows).extracting(HourlyForecastRow::temperature).containsExactly(15, 17);
+        assertThat(rows.get(0).location().toString()).isEqualTo(location.toString());
+    }
 }
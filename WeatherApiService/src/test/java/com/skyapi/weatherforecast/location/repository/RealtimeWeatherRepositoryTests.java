@@ -17,6 +17,9 @@ public class RealtimeWeatherRepositoryTests extends BaseRepositoryTests {
     @Autowired
     private RealtimeWeatherRepository repo;
 
+    @Autowired
+    private LocationRepository locationRepo;
+
     @Test
     public void testUpdateForRealtimeWeather() {
         String locationCode = "NYC_USA";
@@ -111,4 +114,59 @@ public class RealtimeWeatherRepositoryTests extends BaseRepositoryTests {
         assertThat(realtimeWeather.getLocationCode()).isEqualTo(locationCode);
     }
 
+    @Test
+    public void testUpsertInsertsThenUpdatesInPlace() {
+        String locationCode = "UPS_TEST";
+
+        locationRepo.save(Location.builder()
+                .code(locationCode)
+                .cityName("Upsert City")
+                .countryCode("US")
+                .countryName("United States of America")
+                .enabled(true)
+                .build());
+
+        LocalDateTime lastUpdated = LocalDateTime.of(2023, 3, 2, 15, 30);
+
+        assertThat(repo.upsert(weather(locationCode, 10, "Sunny", lastUpdated))).isPositive();
+        assertThat(repo.upsert(weather(locationCode, -2, "Snowy", lastUpdated.plusMinutes(1)))).isPositive();
+
+        RealtimeWeather realtimeWeather = repo.findById(locationCode).get();
+
+        assertEquals(-2, realtimeWeather.getTemperature());
+        assertEquals("Snowy", realtimeWeather.getStatus());
+        assertEquals(lastUpdated.plusMinutes(1), realtimeWeather.getLastUpdated());
+    }
+
+    @Test
+    public void testUpsertSkipsUnknownAndTrashedLocations() {
+        String locationCode = "UPS_TRASH";
+
+        locationRepo.save(Location.builder()
+                .code(locationCode)
+                .cityName("Trashed City")
+                .countryCode("US")
+                .countryName("United States of America")
+                .trashed(true)
+                .build());
+
+        LocalDateTime lastUpdated = LocalDateTime.of(2023, 3, 2, 15, 30);
+
+        assertThat(repo.upsert(weather("ABCXYZ", 10, "Sunny", lastUpdated))).isZero();
+        assertThat(repo.upsert(weather(locationCode, 10, "Sunny", lastUpdated))).isZero();
+        assertThat(repo.findById(locationCode)).isEmpty();
+    }
+
+    private static RealtimeWeather weather(String locationCode, int temperature, String status,
+                                           LocalDateTime lastUpdated) {
+        return RealtimeWeather.builder()
+                .locationCode(locationCode)
+                .temperature(temperature)
+                .humidity(32)
+                .precipitation(42)
+                .windSpeed(12)
+                .status(status)
+                .lastUpdated(lastUpdated)
+                .build();
+    }
 }
@@ -0,0 +1,91 @@
+package com.skyapi.weatherforecast.location.service;
+
+import com.skyapi.weatherforecast.accesslog.AccessLog;
+import com.skyapi.weatherforecast.accesslog.AccessLogProperties;
+import com.skyapi.weatherforecast.accesslog.AccessLogStats;
+import com.skyapi.weatherforecast.base.TestFixtures;
+import com.skyapi.weatherforecast.common.Location;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AccessLogTests {
+
+    private final Location newYork = TestFixtures.newYork();
+
+    @Test
+    public void testFullBufferDropsEvents() {
+        AccessLogProperties properties = new AccessLogProperties();
+        properties.setCapacity(4);
+
+        AccessLog accessLog = new AccessLog(properties);
+
+        for (int i = 0; i < 6; i++) {
+            accessLog.clientAddress("10.0.0." + i);
+        }
+
+        assertThat(accessLog.stats().getPending()).isEqualTo(4);
+        assertThat(accessLog.stats().getDropped()).isEqualTo(2);
+
+        assertThat(accessLog.drain()).isEqualTo(4);
+
+        accessLog.geolocation("1.1.1.1", newYork);
+        assertThat(accessLog.drain()).isEqualTo(1);
+
+        AccessLogStats stats = accessLog.stats();
+        assertThat(stats.getOffered()).isEqualTo(7);
+        assertThat(stats.getWritten()).isEqualTo(5);
+        assertThat(stats.getPending()).isZero();
+    }
+
+    @Test
+    public void testFullBufferCanFallBackToSynchronousLogging() {
+        AccessLogProperties properties = new AccessLogProperties();
+        properties.setCapacity(2);
+        properties.setOverflowPolicy(AccessLogProperties.OverflowPolicy.LOG_SYNCHRONOUSLY);
+
+        AccessLog accessLog = new AccessLog(properties);
+
+        for (int i = 0; i < 5; i++) {
+            accessLog.clientAddress("10.0.0." + i);
+        }
+
+        assertThat(accessLog.stats().getWrittenSynchronously()).isEqualTo(3);
+        assertThat(accessLog.stats().getDropped()).isZero();
+    }
+
+    @Test
+    public void testConcurrentWritersLoseNothingWhileWriterKeepsUp() throws InterruptedException {
+        AccessLogProperties properties = new AccessLogProperties();
+        properties.setCapacity(1 << 16);
+
+        AccessLog accessLog = new AccessLog(properties);
+        accessLog.start();
+
+        List<Thread> threads = new ArrayList<>();
+
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    accessLog.geolocation("1.1.1.1", newYork);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        accessLog.stop();
+
+        AccessLogStats stats = accessLog.stats();
+        assertThat(stats.getOffered()).isEqualTo(20_000);
+        assertThat(stats.getWritten() + stats.getDropped()).isEqualTo(20_000);
+        assertThat(stats.getPending()).isZero();
+    }
+}
@@ -0,0 +1,90 @@
+package com.skyapi.weatherforecast.location.service;
+
+import com.skyapi.weatherforecast.cache.CacheStats;
+import com.skyapi.weatherforecast.cache.ExpiringCache;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExpiringCacheTests {
+
+    @Test
+    public void testGetReturnsCachedValueAndCountsHitsAndMisses() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1));
+
+        assertThat(cache.get("108.30.178.78")).isNull();
+
+        cache.put("108.30.178.78", "New York City");
+
+        assertThat(cache.get("108.30.178.78")).isEqualTo("New York City");
+
+        CacheStats stats = cache.stats();
+        assertThat(stats.getHits()).isEqualTo(1);
+        assertThat(stats.getMisses()).isEqualTo(1);
+        assertThat(stats.getHitRatio()).isEqualTo(0.5);
+    }
+
+    @Test
+    public void testExpiredEntryIsEvicted() throws InterruptedException {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMillis(20));
+
+        cache.put("103.48.198.141", "Delhi");
+
+        Thread.sleep(50);
+
+        assertThat(cache.get("103.48.198.141")).isNull();
+        assertThat(cache.stats().getEvictions()).isEqualTo(1);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    public void testSizeIsBoundedAndRecentlyReadEntriesSurvive() {
+        ExpiringCache<Integer, Integer> cache = new ExpiringCache<>(3, Duration.ZERO);
+
+        cache.put(1, 1);
+        cache.put(2, 2);
+        cache.put(3, 3);
+
+        cache.get(1);
+
+        cache.put(4, 4);
+
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.get(1)).isEqualTo(1);
+        assertThat(cache.get(2)).isNull();
+        assertThat(cache.stats().getEvictions()).isEqualTo(1);
+    }
+
+    @Test
+    public void testReplacingAndInvalidatingEntriesKeepsCacheBounded() {
+        ExpiringCache<String, Integer> cache = new ExpiringCache<>(2, Duration.ZERO);
+
+        for (int i = 0; i < 100; i++) {
+            cache.put("key", i);
+            cache.invalidate("other");
+        }
+
+        cache.put("other", -1);
+        cache.invalidate("key");
+
+        assertThat(cache.get("key")).isNull();
+        assertThat(cache.get("other")).isEqualTo(-1);
+        assertThat(cache.stats().getEvictions()).isZero();
+    }
+
+    @Test
+    public void testPutIfAbsentKeepsLiveEntry() throws InterruptedException {
+        ExpiringCache<String, Integer> cache = new ExpiringCache<>(10, Duration.ofMillis(20));
+
+        assertThat(cache.putIfAbsent("key", 1)).isEqualTo(1);
+        assertThat(cache.putIfAbsent("key", 2)).isEqualTo(1);
+        assertThat(cache.get("key")).isEqualTo(1);
+
+        Thread.sleep(40);
+
+        assertThat(cache.putIfAbsent("key", 3)).isEqualTo(3);
+        assertThat(cache.get("key")).isEqualTo(3);
+    }
+}
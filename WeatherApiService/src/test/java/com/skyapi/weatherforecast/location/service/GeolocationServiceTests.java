@@ -0,0 +1,275 @@
+package com.skyapi.weatherforecast.location.service;
+
+import com.skyapi.weatherforecast.accesslog.AccessLog;
+import com.skyapi.weatherforecast.accesslog.AccessLogProperties;
+import com.skyapi.weatherforecast.cache.CacheStats;
+import com.skyapi.weatherforecast.common.Location;
+import com.skyapi.weatherforecast.exception.GeolocationException;
+import com.skyapi.weatherforecast.exception.LocationNotFoundException;
+import com.skyapi.weatherforecast.ip2location.IP2LocationTestDatabase;
+import com.skyapi.weatherforecast.location.config.GeolocationProperties;
+import com.skyapi.weatherforecast.location.config.LocationMatchingProperties;
+import com.skyapi.weatherforecast.location.dto.GeolocationResultDTO;
+import com.skyapi.weatherforecast.location.geolocation.GeolocationDatabaseStatus;
+import com.skyapi.weatherforecast.location.repository.LocationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class GeolocationServiceTests {
+
+    @TempDir
+    Path tempDir;
+
+    private GeolocationProperties properties;
+
+    private LocationRepository locationRepo;
+
+    private LocationCodeIndex locationCodeIndex;
+
+    private AccessLog accessLog;
+
+    private Path databaseFile;
+
+    @BeforeEach
+    void setup() throws IOException {
+        databaseFile = IP2LocationTestDatabase.sample().writeTo(tempDir.resolve("IP2LOCATION-TEST-DB3.BIN"));
+
+        properties = new GeolocationProperties();
+        properties.getDatabase().setPath(databaseFile.toString());
+        properties.getDatabase().setMemoryMapped(true);
+
+        locationRepo = mock(LocationRepository.class);
+        when(locationRepo.findUntrashed()).thenReturn(List.of(
+                Location.builder().code("NYC_USA").countryCode("US").cityName("New York City").build(),
+                Location.builder().code("SAO_BR").countryCode("BR").cityName("Sao Paulo").build()));
+
+        locationCodeIndex = new LocationCodeIndex(locationRepo, new LocationMatchingProperties());
+
+        accessLog = new AccessLog(new AccessLogProperties());
+    }
+
+    @Test
+    public void testGetLocationFromMemoryMappedDatabase() {
+        GeolocationService service = new GeolocationService(properties, locationCodeIndex, accessLog);
+
+        Location location = service.getLocation("108.30.178.78");
+
+        assertThat(location.getCityName()).isEqualTo("New York City");
+        assertThat(location.getRegionName()).isEqualTo("New York");
+        assertThat(location.getCountryCode()).isEqualTo("US");
+        assertThat(location.getCountryName()).isEqualTo("United States of America");
+    }
+
+    @Test
+    public void testGetLocationFromFileWithoutMemoryMapping() {
+        properties.getDatabase().setMemoryMapped(false);
+
+        GeolocationService service = new GeolocationService(properties, locationCodeIndex, accessLog);
+
+        assertThat(service.getLocation("103.48.198.141").getCityName()).isEqualTo("Delhi");
+    }
+
+    @Test
+    public void testGetLocationFromIndexedEngine() {
+        properties.setEngine(GeolocationProperties.Engine.INDEXED);
+
+        GeolocationService service = new GeolocationService(properties, locationCodeIndex, accessLog);
+
+        assertThat(service.getLocation("108.30.178.78").getCityName()).isEqualTo("New York City");
+        assertThat(service.getLocation("103.48.198.141").getCityName()).isEqualTo("Delhi");
+    }
+
+    @Test
+    public void testRepeatedLookupIsServedFromCache() {
+        GeolocationService service = new GeolocationService(properties, locationCodeIndex, accessLog);
+
+        service.getLocation("103.48.198.141");
+        service.getLocation(" 103.48.198.141 ");
+
+        assertThat(service.getCacheStats().getMisses()).isEqualTo(1);
+        assertThat(service.getCacheStats().getHits()).isEqualTo(1);
+    }
+
+    @Test
+    public void testCachedLocationCannotBeChangedByCaller() {
+        GeolocationService service = new GeolocationService(properties, locationCodeIndex, accessLog);
+
+        service.getLocation("103.48.198.141").setCityName("Changed");
+
+        assertThat(service.getLocation("103.48.198.141").getCityName()).isEqualTo("Delhi");
+        assertThat(service.getCacheStats().getHits()).isEqualTo(1);
+    }
+
+    @Test
+    public void testIndexedRecordCannotBeChangedByCaller() {
+        properties.setEngine(GeolocationProperties.Engine.INDEXED);
+
+        GeolocationService service = new GeolocationService(properties, locationCodeIndex, accessLog);
+
+        service.getLocationUncached("103.48.198.141").setCityName("Changed");
+        service.getLocation("103.48.198.141").setCityName("Changed");
+
+        assertThat(service.getLocationUncached("103.48.198.141").getCityName()).isEqualTo("Delhi");
+        assertThat(service.getLocation("103.48.198.141").getCityName()).isEqualTo("Delhi");
+    }
+
+    @Test
+    public void testInvalidIPAddressThrowsGeolocationException() {
+        GeolocationService service = new GeolocationService(properties, locationCodeIndex, accessLog);
+
+        assertThatThrownBy(() -> service.getLocation("abc"))
+                .isInstanceOf(GeolocationException.class)
+                .hasMessageContaining("INVALID_IP_ADDRESS");
+    }
+
+    @Test
+    public void testReloadSwapsInUpdatedDatabase() throws IOException {
+        properties.setEngine(GeolocationProperties.Engine.INDEXED);
+
+        GeolocationService service = new GeolocationService(properties, locationCodeIndex, accessLog);
+
+        assertThat(service.getLocation("103.48.198.141").getCityName()).isEqualTo("Delhi");
+
+        new IP2LocationTestDatabase()
+                .range("0.0.0.0", "-", "-", "-", "-")
+                .range("103.0.0.0", "IN", "India", "Maharashtra", "Mumbai")
+                .range("104.0.0.0", "-", "-", "-", "-")
+                .writeTo(tempDir.resolve("update.BIN"));
+
+        replaceDatabaseFile(tempDir.resolve("update.BIN"));
+
+        GeolocationDatabaseStatus status = service.reload();
+
+        assertThat(status.getEntryCount()).isEqualTo(3);
+        assertThat(status.getReloads()).isEqualTo(1);
+        assertThat(status.getMemoryFootprintBytes()).isPositive();
+        assertThat(service.getLocation("103.48.198.141").getCityName()).isEqualTo("Mumbai");
+    }
+
+    @Test
+    public void testGetLocationCodeFromIndexedEngine() {
+        properties.setEngine(GeolocationProperties.Engine.INDEXED);
+
+        GeolocationService service = new GeolocationService(properties, locationCodeIndex, accessLog);
+
+        assertThat(service.getLocationCode("108.30.178.78")).isEqualTo("NYC_USA");
+        assertThat(service.getLocationCode("103.48.199.10")).isEqualTo("NYC_USA");
+
+        assertThat(service.getLocationCode("177.1.2.3")).isEqualTo("SAO_BR");
+
+        assertThatThrownBy(() -> service.getLocationCode("103.48.198.141"))
+                .isInstanceOf(LocationNotFoundException.class)
+                .hasMessageContaining("Delhi");
+
+        assertThat(locationCodeIndex.getUnmatched().getTotalUnmatched()).isEqualTo(1);
+    }
+
+    @Test
+    public void testGetLocationCodeFollowsLocationChanges() {
+        properties.setEngine(GeolocationProperties.Engine.INDEXED);
+
+        GeolocationService service = new GeolocationService(properties, locationCodeIndex, accessLog);
+
+        assertThatThrownBy(() -> service.getLocationCode("103.48.198.141")).isInstanceOf(LocationNotFoundException.class);
+
+        locationCodeIndex.put(Location.builder().code("DELHI_IN").countryCode("IN").cityName("Delhi").build());
+        service.invalidateServedMisses();
+
+        assertThat(service.getLocationCode("103.48.198.141")).isEqualTo("DELHI_IN");
+    }
+
+    @Test
+    public void testGetLocationCodeFromLibraryEngine() {
+        GeolocationService service = new GeolocationService(properties, locationCodeIndex, accessLog);
+
+        assertThat(service.getLocationCode("108.30.178.78")).isEqualTo("NYC_USA");
+        assertThatThrownBy(() -> service.getLocationCode("103.48.198.141")).isInstanceOf(LocationNotFoundException.class);
+    }
+
+    @Test
+    public void testRepeatedFailuresAreServedFromNegativeCache() {
+        GeolocationService service = new GeolocationService(properties, locationCodeIndex, accessLog);
+
+        Throwable invalid = catchThrowable(() -> service.getLocationCode("abc"));
+        Throwable unserved = catchThrowable(() -> service.getLocationCode("103.48.198.141"));
+
+        assertThat(invalid).isInstanceOf(GeolocationException.class);
+        assertThat(unserved).isInstanceOf(LocationNotFoundException.class);
+        assertThat(unserved.getStackTrace()).isEmpty();
+
+        assertThat(catchThrowable(() -> service.getLocationCode("abc"))).isSameAs(invalid);
+        assertThat(catchThrowable(() -> service.getLocationCode("103.48.198.141"))).isSameAs(unserved);
+        assertThat(service.getNegativeCacheStats().getHits()).isEqualTo(2);
+
+        // an unserved city still geolocates
+        assertThat(service.getLocation("103.48.198.141").getCityName()).isEqualTo("Delhi");
+        assertThat(locationCodeIndex.getUnmatched().getTotalUnmatched()).isEqualTo(2);
+    }
+
+    @Test
+    public void testEveryResolvedAddressIsAccessLogged() {
+        properties.setEngine(GeolocationProperties.Engine.INDEXED);
+
+        GeolocationService service = new GeolocationService(properties, locationCodeIndex, accessLog);
+
+        service.getLocation("108.30.178.78");
+        service.getLocation("108.30.178.78");
+        service.getLocationCode("108.30.178.78");
+        catchThrowable(() -> service.getLocationCode("103.48.198.141"));
+        catchThrowable(() -> service.getLocation("abc"));
+
+        // cache hits and the indexed join are logged too, failed lookups are not
+        assertThat(accessLog.stats().getOffered()).isEqualTo(4);
+    }
+
+    @Test
+    public void testBatchLeavesAddressCachesUnchanged() {
+        GeolocationService service = new GeolocationService(properties, locationCodeIndex, accessLog);
+
+        service.getLocation("108.30.178.78");
+        catchThrowable(() -> service.getLocation("abc"));
+
+        CacheStats cacheStats = service.getCacheStats();
+        CacheStats negativeCacheStats = service.getNegativeCacheStats();
+        long offered = accessLog.stats().getOffered();
+
+        GeolocationBatchService.Batch batch = new GeolocationBatchService(service, locationCodeIndex, properties)
+                .newBatch();
+
+        assertThat(batch.resolve("108.30.178.78").getLocationCode()).isEqualTo("NYC_USA");
+        assertThat(batch.resolve("103.48.198.141").getCityName()).isEqualTo("Delhi");
+        assertThat(batch.resolve("abc").getStatus()).isEqualTo(GeolocationResultDTO.STATUS_FAILED);
+
+        assertThat(service.getCacheStats()).isEqualTo(cacheStats);
+        assertThat(service.getNegativeCacheStats()).isEqualTo(negativeCacheStats);
+        assertThat(accessLog.stats().getOffered()).isEqualTo(offered);
+    }
+
+    @Test
+    public void testFailedReloadKeepsCurrentDatabase() throws IOException {
+        GeolocationService service = new GeolocationService(properties, locationCodeIndex, accessLog);
+
+        replaceDatabaseFile(Files.write(tempDir.resolve("corrupt.BIN"), new byte[]{1, 2, 3}));
+
+        assertThatThrownBy(service::reload).isInstanceOf(GeolocationException.class);
+        assertThat(service.getLocation("103.48.198.141").getCityName()).isEqualTo("Delhi");
+    }
+
+    private void replaceDatabaseFile(Path update) throws IOException {
+        // memory-mapped databases must be replaced by a rename, never overwritten in place
+        Files.move(update, databaseFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
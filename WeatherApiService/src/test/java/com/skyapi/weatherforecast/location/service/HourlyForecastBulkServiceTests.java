@@ -0,0 +1,199 @@
+package com.skyapi.weatherforecast.location.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skyapi.weatherforecast.base.BaseServiceTest;
+import com.skyapi.weatherforecast.common.Location;
+import com.skyapi.weatherforecast.exception.BadRequestException;
+import com.skyapi.weatherforecast.hourly.config.HourlyWeatherProperties;
+import com.skyapi.weatherforecast.hourly.dto.HourlyForecastBulkItemDTO;
+import com.skyapi.weatherforecast.hourly.dto.HourlyForecastBulkResultDTO;
+import com.skyapi.weatherforecast.hourly.dto.HourlyForecastChangesDTO;
+import com.skyapi.weatherforecast.hourly.dto.HourlyForecastIngestResultDTO;
+import com.skyapi.weatherforecast.hourly.dto.HourlyWeatherDTO;
+import com.skyapi.weatherforecast.hourly.service.HourlyForecastBulkService;
+import com.skyapi.weatherforecast.hourly.service.HourlyForecastUpdate;
+import com.skyapi.weatherforecast.hourly.service.HourlyForecastWriter;
+import com.skyapi.weatherforecast.hourly.service.HourlyWeatherService;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class HourlyForecastBulkServiceTests extends BaseServiceTest {
+
+    @Mock
+    private HourlyForecastWriter hourlyForecastWriter;
+
+    @Mock
+    private HourlyWeatherService hourlyWeatherService;
+
+    private HourlyForecastBulkService bulkService;
+
+    @BeforeEach
+    void setup() {
+        HourlyWeatherProperties properties = new HourlyWeatherProperties();
+        properties.getBulk().setChunkSize(2);
+        properties.getBulk().setMaxLocations(5);
+
+        bulkService = new HourlyForecastBulkService(hourlyForecastWriter, hourlyWeatherService,
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), properties);
+    }
+
+    @Test
+    public void testUpdateReportsResultPerLocationInRequestOrder() throws BadRequestException {
+        HourlyForecastBulkItemDTO newYork = item("NYC_USA", 12);
+        HourlyForecastBulkItemDTO delhi = item("DELHI_IN", 30);
+        HourlyForecastBulkItemDTO invalid = item("MADRID_ES", 120);
+        HourlyForecastBulkItemDTO unknown = item("ABC_XY", 10);
+        HourlyForecastBulkItemDTO duplicate = item("NYC_USA", 13);
+
+        HourlyForecastUpdate newYorkUpdate = update("NYC_USA", changes(1, 0, 0, 0));
+        HourlyForecastUpdate delhiUpdate = update("DELHI_IN", changes(0, 0, 0, 1));
+
+        when(hourlyForecastWriter.write(anyMap()))
+                .thenReturn(Map.of("NYC_USA", newYorkUpdate, "DELHI_IN", delhiUpdate))
+                .thenReturn(Map.of());
+
+        HourlyForecastBulkResultDTO result = bulkService.update(List.of(newYork, delhi, invalid, unknown, duplicate));
+
+        assertThat(result.getTotal()).isEqualTo(5);
+        assertThat(result.getUpdated()).isEqualTo(1);
+        assertThat(result.getUnchanged()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(3);
+        assertThat(result.getChanges()).isEqualTo(changes(1, 0, 0, 1));
+
+        assertThat(result.getResults()).extracting(HourlyForecastBulkResultDTO.ItemResult::getStatus)
+                .containsExactly("UPDATED", "UNCHANGED", "FAILED", "FAILED", "FAILED");
+        assertThat(result.getResults().get(2).getError()).contains("Temperature");
+        assertThat(result.getResults().get(3).getError()).contains("No location found");
+        assertThat(result.getResults().get(4).getError()).contains("Duplicate");
+
+        // three valid locations in chunks of two
+        verify(hourlyForecastWriter, times(2)).write(anyMap());
+        verify(hourlyWeatherService).refresh("NYC_USA", newYorkUpdate);
+        verify(hourlyWeatherService).refresh("DELHI_IN", delhiUpdate);
+        verify(hourlyWeatherService, never()).refresh(eq("ABC_XY"), any());
+    }
+
+    @Test
+    public void testUpdateFailsOnlyTheLocationsOfAChunkThatCannotBeWritten() throws BadRequestException {
+        HourlyForecastUpdate madridUpdate = update("MADRID_ES", changes(1, 0, 0, 0));
+
+        when(hourlyForecastWriter.write(anyMap()))
+                .thenThrow(new QueryTimeoutException("Query timed out"))
+                .thenReturn(Map.of("MADRID_ES", madridUpdate));
+
+        HourlyForecastBulkResultDTO result = bulkService.update(List.of(item("NYC_USA", 12), item("DELHI_IN", 30),
+                item("MADRID_ES", 20)));
+
+        assertThat(result.getUpdated()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(2);
+        assertThat(result.getResults()).extracting(HourlyForecastBulkResultDTO.ItemResult::getStatus)
+                .containsExactly("FAILED", "FAILED", "UPDATED");
+        assertThat(result.getResults().get(0).getError()).contains("Failed to write");
+
+        verify(hourlyWeatherService, times(1)).refresh("MADRID_ES", madridUpdate);
+        verify(hourlyWeatherService, never()).refresh(eq("NYC_USA"), any());
+    }
+
+    @Test
+    public void testUpdateRejectsTooManyLocations() {
+        List<HourlyForecastBulkItemDTO> items = List.of(item("A", 1), item("B", 1), item("C", 1),
+                item("D", 1), item("E", 1), item("F", 1));
+
+        assertThrows(BadRequestException.class, () -> bulkService.update(items));
+        verify(hourlyForecastWriter, never()).write(anyMap());
+    }
+
+    @Test
+    public void testIngestWritesFixedSizeChunksAndReportsLineErrors() throws IOException {
+        String body = """
+                {"location_code":"NYC_USA","hourly_forecast":[{"hour_of_day":9,"temperature":12,"precipitation":10,"status":"Sunny"}]}
+                {"location_code":"DELHI_IN","hourly_forecast":[]}
+                not-json
+                {"location_code":"NYC_USA","hourly_forecast":[{"hour_of_day":9,"temperature":13,"precipitation":10,"status":"Sunny"}]}
+                {"location_code":"ABC_XY","hourly_forecast":[{"hour_of_day":9,"temperature":10,"precipitation":10,"status":"Sunny"}]}
+                {"location_code":"MADRID_ES","hourly_forecast":[{"hour_of_day":9,"temperature":20,"precipitation":10,"status":"Sunny"}]}
+                """;
+
+        when(hourlyForecastWriter.write(anyMap()))
+                .thenReturn(Map.of("NYC_USA", update("NYC_USA", changes(0, 1, 0, 0))))
+                .thenReturn(Map.of("MADRID_ES", update("MADRID_ES", changes(1, 0, 0, 0))));
+
+        HourlyForecastIngestResultDTO result = bulkService.ingest(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.getLines()).isEqualTo(6);
+        assertThat(result.getUpdated()).isEqualTo(2);
+        assertThat(result.getSuperseded()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(3);
+        assertThat(result.getChanges()).isEqualTo(changes(1, 1, 0, 0));
+        assertThat(result.getErrors()).extracting(HourlyForecastIngestResultDTO.LineError::getLine)
+                .containsExactly(2L, 3L, 5L);
+
+        // the second NYC_USA record replaced the first one before the chunk of two was full
+        verify(hourlyForecastWriter, times(2)).write(anyMap());
+    }
+
+    @Test
+    public void testIngestReportsLinesOfAChunkThatCannotBeWritten() throws IOException {
+        String body = """
+                {"location_code":"NYC_USA","hourly_forecast":[{"hour_of_day":9,"temperature":12,"precipitation":10,"status":"Sunny"}]}
+                {"location_code":"DELHI_IN","hourly_forecast":[{"hour_of_day":9,"temperature":30,"precipitation":10,"status":"Sunny"}]}
+                {"location_code":"MADRID_ES","hourly_forecast":[{"hour_of_day":9,"temperature":20,"precipitation":10,"status":"Sunny"}]}
+                """;
+
+        when(hourlyForecastWriter.write(anyMap()))
+                .thenThrow(new QueryTimeoutException("Query timed out"))
+                .thenReturn(Map.of("MADRID_ES", update("MADRID_ES", changes(1, 0, 0, 0))));
+
+        HourlyForecastIngestResultDTO result = bulkService.ingest(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.getUpdated()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(2);
+        assertThat(result.getErrors()).extracting(HourlyForecastIngestResultDTO.LineError::getLine)
+                .containsExactly(1L, 2L);
+    }
+
+    private HourlyForecastBulkItemDTO item(String locationCode, int temperature) {
+        return HourlyForecastBulkItemDTO.builder()
+                .locationCode(locationCode)
+                .hourlyForecast(List.of(new HourlyWeatherDTO()
+                        .hourOfDay(9)
+                        .temperature(temperature)
+                        .precipitation(10)
+                        .status("Sunny")))
+                .build();
+    }
+
+    private static HourlyForecastUpdate update(String locationCode, HourlyForecastChangesDTO changes) {
+        return new HourlyForecastUpdate(Location.builder().code(locationCode).build(), List.of(), changes);
+    }
+
+    private static HourlyForecastChangesDTO changes(int inserted, int updated, int deleted, int unchanged) {
+        return HourlyForecastChangesDTO.builder()
+                .inserted(inserted)
+                .updated(updated)
+                .deleted(deleted)
+                .unchanged(unchanged)
+                .build();
+    }
+}
@@ -0,0 +1,83 @@
+package com.skyapi.weatherforecast.location.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skyapi.weatherforecast.base.TestFixtures;
+import com.skyapi.weatherforecast.common.HourlyWeather;
+import com.skyapi.weatherforecast.common.Location;
+import com.skyapi.weatherforecast.hourly.config.HourlyWeatherProperties;
+import com.skyapi.weatherforecast.hourly.service.HourlyForecastResponseCache;
+import com.skyapi.weatherforecast.hourly.service.HourlyForecastStore;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HourlyForecastResponseCacheTests {
+
+    private final Location location = TestFixtures.newYork();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final HourlyForecastStore store = new HourlyForecastStore(new HourlyWeatherProperties());
+
+    private final HourlyForecastResponseCache cache =
+            new HourlyForecastResponseCache(new HourlyWeatherProperties(), objectMapper);
+
+    @Test
+    public void testBuildsEachHourOnceUntilForecastChanges() throws IOException {
+        store.putIfAbsent("NYC_USA", location, List.of(hour(8, 12, "Cloudy"), hour(10, 15, "Sunny")));
+        HourlyForecastStore.Forecast forecast = store.get("NYC_USA");
+
+        byte[] afterSeven = cache.get("NYC_USA", forecast, 7);
+        byte[] afterNine = cache.get("NYC_USA", forecast, 9);
+
+        assertThat(cache.get("NYC_USA", forecast, 7)).isSameAs(afterSeven);
+        assertThat(cache.get("NYC_USA", forecast, 9)).isSameAs(afterNine);
+
+        JsonNode json = objectMapper.readTree(afterNine);
+        assertThat(json.get("location").asText()).isEqualTo(location.toString());
+        assertThat(json.get("hourly_forecast")).hasSize(1);
+        assertThat(json.get("hourly_forecast").get(0).get("hour_of_day").asInt()).isEqualTo(10);
+        assertThat(json.get("hourly_forecast").get(0).get("status").asText()).isEqualTo("Sunny");
+        assertThat(json.has("changes")).isFalse();
+
+        // a replaced record is never answered from responses built for the previous one
+        store.remove("NYC_USA");
+        store.putIfAbsent("NYC_USA", location, List.of(hour(10, 20, "Rainy")));
+        byte[] updated = cache.get("NYC_USA", store.get("NYC_USA"), 9);
+
+        assertThat(objectMapper.readTree(updated).get("hourly_forecast").get(0).get("temperature").asInt())
+                .isEqualTo(20);
+    }
+
+    @Test
+    public void testInvalidateDropsAllHoursOfLocation() {
+        store.putIfAbsent("NYC_USA", location, List.of(hour(10, 15, "Sunny")));
+        HourlyForecastStore.Forecast forecast = store.get("NYC_USA");
+
+        byte[] all = cache.get("NYC_USA", forecast, -1);
+        byte[] afterNine = cache.get("NYC_USA", forecast, 9);
+
+        cache.invalidate("NYC_USA");
+
+        assertThat(cache.get("NYC_USA", forecast, -1)).isNotSameAs(all).isEqualTo(all);
+        assertThat(cache.get("NYC_USA", forecast, 9)).isNotSameAs(afterNine).isEqualTo(afterNine);
+    }
+
+    @Test
+    public void testNoForecastAfterHourIsNull() {
+        store.putIfAbsent("NYC_USA", location, List.of(hour(10, 15, "Sunny")));
+        HourlyForecastStore.Forecast forecast = store.get("NYC_USA");
+
+        assertThat(cache.get("NYC_USA", forecast, 10)).isNull();
+        assertThat(cache.get("NYC_USA", forecast, 30)).isNull();
+        assertThat(cache.get("NYC_USA", forecast, -5)).isNotNull();
+    }
+
+    private HourlyWeather hour(int hourOfDay, int temperature, String status) {
+        return TestFixtures.hour(location, hourOfDay, temperature, status);
+    }
+}
@@ -0,0 +1,83 @@
+package com.skyapi.weatherforecast.location.service;
+
+import com.skyapi.weatherforecast.base.TestFixtures;
+import com.skyapi.weatherforecast.common.HourlyWeather;
+import com.skyapi.weatherforecast.common.Location;
+import com.skyapi.weatherforecast.hourly.config.HourlyWeatherProperties;
+import com.skyapi.weatherforecast.hourly.service.HourlyForecastStore;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HourlyForecastStoreTests {
+
+    private final Location location = TestFixtures.newYork();
+
+    private final HourlyForecastStore store = new HourlyForecastStore(new HourlyWeatherProperties());
+
+    @Test
+    public void testAfterReturnsLaterHoursInOrder() {
+        store.putIfAbsent("NYC_USA", location, List.of(hour(23, -5, "Snowy"), hour(0, 3, "Cloudy"), hour(12, 15, "Sunny")));
+
+        HourlyForecastStore.Forecast forecast = store.get("NYC_USA");
+
+        assertThat(forecast.after(-1)).extracting(hourlyWeather -> hourlyWeather.getId().getHourOfDay())
+                .containsExactly(0, 12, 23);
+
+        List<HourlyWeather> afterNoon = forecast.after(12);
+        assertThat(afterNoon).hasSize(1);
+        assertThat(afterNoon.get(0).getTemperature()).isEqualTo(-5);
+        assertThat(afterNoon.get(0).getStatus()).isEqualTo("Snowy");
+        assertThat(afterNoon.get(0).getId().getLocation().toString()).isEqualTo(location.toString());
+
+        assertThat(forecast.after(23)).isEmpty();
+    }
+
+    @Test
+    public void testPutIfAbsentKeepsStoredForecast() {
+        store.putIfAbsent("NYC_USA", location, List.of(hour(10, 20, "Sunny")));
+        store.putIfAbsent("NYC_USA", location, List.of(hour(10, 5, "Rainy")));
+
+        assertThat(store.get("NYC_USA").after(-1).get(0).getTemperature()).isEqualTo(20);
+
+        store.remove("NYC_USA");
+        assertThat(store.get("NYC_USA")).isNull();
+
+        store.putIfAbsent("NYC_USA", null, List.of());
+        assertThat(store.get("NYC_USA")).isNull();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    public void testExpiredForecastIsReplacedByNextLoad() throws InterruptedException {
+        HourlyWeatherProperties properties = new HourlyWeatherProperties();
+        properties.getStore().setTtl(Duration.ofMillis(20));
+
+        HourlyForecastStore expiringStore = new HourlyForecastStore(properties);
+        expiringStore.putIfAbsent("NYC_USA", location, List.of(hour(10, 20, "Sunny")));
+
+        Thread.sleep(40);
+
+        expiringStore.putIfAbsent("NYC_USA", location, List.of(hour(10, 5, "Rainy")));
+        assertThat(expiringStore.get("NYC_USA").after(-1).get(0).getTemperature()).isEqualTo(5);
+
+        Thread.sleep(40);
+
+        assertThat(expiringStore.get("NYC_USA")).isNull();
+        assertThat(expiringStore.size()).isZero();
+    }
+
+    @Test
+    public void testForecastWithInvalidHourIsNotStored() {
+        store.putIfAbsent("NYC_USA", location, List.of(hour(24, 20, "Sunny")));
+
+        assertThat(store.get("NYC_USA")).isNull();
+    }
+
+    private HourlyWeather hour(int hourOfDay, int temperature, String status) {
+        return TestFixtures.hour(location, hourOfDay, temperature, status);
+    }
+}
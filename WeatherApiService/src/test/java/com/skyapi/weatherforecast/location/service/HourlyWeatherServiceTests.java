@@ -5,22 +5,37 @@ import com.skyapi.weatherforecast.common.HourlyWeather;
 import com.skyapi.weatherforecast.common.HourlyWeatherId;
 import com.skyapi.weatherforecast.common.Location;
 import com.skyapi.weatherforecast.exception.LocationNotFoundException;
+import com.skyapi.weatherforecast.hourly.dto.HourlyForecastChangesDTO;
+import com.skyapi.weatherforecast.hourly.service.HourlyForecastResponseCache;
+import com.skyapi.weatherforecast.hourly.config.HourlyWeatherProperties;
+import com.skyapi.weatherforecast.hourly.service.HourlyForecastStore;
+import com.skyapi.weatherforecast.hourly.service.HourlyForecastUpdate;
+import com.skyapi.weatherforecast.hourly.service.HourlyForecastWriter;
 import com.skyapi.weatherforecast.hourly.service.HourlyWeatherService;
+import com.skyapi.weatherforecast.hourly.repository.HourlyForecastRow;
 import com.skyapi.weatherforecast.hourly.repository.HourlyWeatherRepository;
 import com.skyapi.weatherforecast.location.repository.LocationRepository;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class HourlyWeatherServiceTests extends BaseServiceTest {
@@ -31,6 +46,18 @@ public class HourlyWeatherServiceTests extends BaseServiceTest {
     @Mock
     private LocationRepository locationRepo;
 
+    @Mock
+    private LocationCodeIndex locationCodeIndex;
+
+    @Spy
+    private HourlyForecastStore hourlyForecastStore = new HourlyForecastStore(new HourlyWeatherProperties());
+
+    @Mock
+    private HourlyForecastWriter hourlyForecastWriter;
+
+    @Mock
+    private HourlyForecastResponseCache hourlyForecastResponseCache;
+
     @InjectMocks
     private HourlyWeatherService hourlyWeatherService;
 
@@ -58,14 +85,16 @@ public class HourlyWeatherServiceTests extends BaseServiceTest {
                 .build();
 
         // when
-        when(locationRepo.findByCountryCodeAndCityName(countryCode, cityName)).thenReturn(location);
-        when(hourlyWeatherRepo.findByLocationCode(anyString(), anyInt())).thenReturn(Collections.singletonList(mockedHourlyWeather));
+        when(locationCodeIndex.findCode(countryCode, cityName)).thenReturn(location.getCode());
+        when(hourlyWeatherRepo.findRowsByLocationCode(anyString(), anyInt())).thenReturn(Collections.singletonList(row(mockedHourlyWeather)));
 
-        List<HourlyWeather> hourlyWeatherList = hourlyWeatherService.getByLocation(location, 10);
+        List<HourlyWeather> hourlyWeatherList = hourlyWeatherService.getByLocation(location, 9);
 
         // then
         assertEquals(1, hourlyWeatherList.size());
         assertThat(hourlyWeatherList).contains(mockedHourlyWeather);
+        assertEquals(15, hourlyWeatherList.get(0).getTemperature());
+        assertEquals(location.toString(), hourlyWeatherList.get(0).getId().getLocation().toString());
     }
 
     @Test
@@ -92,13 +121,15 @@ public class HourlyWeatherServiceTests extends BaseServiceTest {
 
         // when
         when(locationRepo.findByCode(locationCode)).thenReturn(location);
-        when(hourlyWeatherRepo.findByLocationCode(anyString(), anyInt())).thenReturn(Collections.singletonList(mockedHourlyWeather));
+        when(hourlyWeatherRepo.findRowsByLocationCode(anyString(), anyInt())).thenReturn(Collections.singletonList(row(mockedHourlyWeather)));
 
-        List<HourlyWeather> hourlyWeatherList = hourlyWeatherService.getByLocationCode(locationCode, 10);
+        List<HourlyWeather> hourlyWeatherList = hourlyWeatherService.getByLocationCode(locationCode, 9);
 
         // then
         assertEquals(1, hourlyWeatherList.size());
         assertThat(hourlyWeatherList).contains(mockedHourlyWeather);
+        assertEquals(15, hourlyWeatherList.get(0).getTemperature());
+        assertEquals(location.toString(), hourlyWeatherList.get(0).getId().getLocation().toString());
 
     }
 
@@ -131,33 +162,184 @@ public class HourlyWeatherServiceTests extends BaseServiceTest {
                 .status("Sunny")
                 .build();
 
-
         var hourlyWeatherInRequest = List.of(forecast1, forecast2);
 
-        location.setListHourlyWeather(hourlyWeatherInRequest);
+        HourlyForecastUpdate update = new HourlyForecastUpdate(location, hourlyWeatherInRequest,
+                HourlyForecastChangesDTO.builder().inserted(1).unchanged(1).build());
 
-        List<HourlyWeather> hourlyWeatherInDB = location.getListHourlyWeather();
-        List<HourlyWeather> hourlyWeatherToBeRemoved = new ArrayList<>();
+        // when
+        when(hourlyForecastWriter.write(Map.of(locationCode, hourlyWeatherInRequest)))
+                .thenReturn(Map.of(locationCode, update));
 
-        for (HourlyWeather item : hourlyWeatherInDB) {
-            if (!hourlyWeatherInRequest.contains(item)) {
-                hourlyWeatherToBeRemoved.add(item.getShallowCopy());
-            }
-        }
+        HourlyForecastUpdate updatedHourlyWeather = hourlyWeatherService.updateByLocationCode(locationCode, hourlyWeatherInRequest);
 
-        for (HourlyWeather item : hourlyWeatherToBeRemoved) {
-            hourlyWeatherInDB.remove(item);
-        }
+        // then
+        assertEquals(updatedHourlyWeather.hourlyForecast().size(), hourlyWeatherInRequest.size());
+        assertEquals(1, updatedHourlyWeather.changes().getInserted());
+        verify(hourlyForecastStore, times(1)).remove(locationCode);
+        verify(hourlyForecastStore, never()).putIfAbsent(anyString(), any(), anyList());
+        verify(hourlyForecastResponseCache, times(1)).invalidate(locationCode);
+    }
 
-        // when
-        when(locationRepo.findByCode(locationCode)).thenReturn(location);
-        when(hourlyWeatherRepo.saveAll(hourlyWeatherInRequest)).thenReturn(hourlyWeatherInRequest);
+    @Test
+    public void testUpdateByUnknownLocationCodeThrows() {
+        when(hourlyForecastWriter.write(anyMap())).thenReturn(Map.of());
 
-        List<HourlyWeather> updatedHourlyWeather = hourlyWeatherService.updateByLocationCode(locationCode, hourlyWeatherInRequest);
+        assertThrows(LocationNotFoundException.class,
+                () -> hourlyWeatherService.updateByLocationCode("ABC_XY", List.of()));
+    }
 
-        // then
-        assertEquals(updatedHourlyWeather.size(), hourlyWeatherInRequest.size());
-        assertTrue(hourlyWeatherInDB.containsAll(hourlyWeatherInRequest));
+    @Test
+    public void testGetETagLoadsForecastOnceAndChangesWithContent() {
+        String locationCode = "NYC_USA";
+
+        Location location = Location.builder()
+                .code(locationCode)
+                .cityName("New York City")
+                .countryName("United States of America")
+                .build();
+
+        HourlyWeather forecast = HourlyWeather.builder()
+                .id(new HourlyWeatherId(10, location))
+                .temperature(15)
+                .precipitation(10)
+                .status("Sunny")
+                .build();
+
+        when(hourlyWeatherRepo.findRowsByLocationCode(locationCode, -1)).thenReturn(List.of(row(forecast)));
+
+        String eTag = hourlyWeatherService.getETag(locationCode, 9);
+
+        assertThat(eTag).startsWith("\"NYC_USA-").endsWith("-9\"");
+        assertThat(hourlyWeatherService.getETag(locationCode, 9)).isEqualTo(eTag);
+        assertThat(hourlyWeatherService.getETag(locationCode, 10)).isNotEqualTo(eTag);
+
+        verify(hourlyWeatherRepo, times(1)).findRowsByLocationCode(locationCode, -1);
+
+        HourlyWeather changed = HourlyWeather.builder()
+                .id(new HourlyWeatherId(10, location))
+                .temperature(16)
+                .precipitation(10)
+                .status("Sunny")
+                .build();
+
+        when(hourlyForecastWriter.write(Map.of(locationCode, List.of(changed)))).thenReturn(Map.of(locationCode,
+                new HourlyForecastUpdate(location, List.of(changed), HourlyForecastChangesDTO.builder().updated(1).build())));
+
+        hourlyWeatherService.updateByLocationCode(locationCode, List.of(changed));
+
+        // the update dropped the stored forecast, and with it the hash, so the committed forecast is loaded again
+        when(hourlyWeatherRepo.findRowsByLocationCode(locationCode, -1)).thenReturn(List.of(row(changed)));
+
+        String changedETag = hourlyWeatherService.getETag(locationCode, 9);
+
+        assertThat(changedETag).isNotEqualTo(eTag);
+        assertThat(hourlyWeatherService.getETag(locationCode, 9)).isEqualTo(changedETag);
+        verify(hourlyWeatherRepo, times(2)).findRowsByLocationCode(locationCode, -1);
+    }
+
+    @Test
+    public void testGetByLocationCodeServesStoredForecastWithoutQueries() {
+        String locationCode = "NYC_USA";
+
+        Location location = Location.builder()
+                .code(locationCode)
+                .cityName("New York City")
+                .countryName("United States of America")
+                .build();
+
+        HourlyForecastStore store = new HourlyForecastStore(new HourlyWeatherProperties());
+        store.putIfAbsent(locationCode, location, List.of(
+                HourlyWeather.builder().id(new HourlyWeatherId(8, location)).temperature(12).status("Cloudy").build(),
+                HourlyWeather.builder().id(new HourlyWeatherId(10, location)).temperature(15).status("Sunny").build()));
+
+        when(hourlyForecastStore.get(locationCode)).thenReturn(store.get(locationCode));
+
+        List<HourlyWeather> hourlyWeatherList = hourlyWeatherService.getByLocationCode(locationCode, 9);
+
+        assertEquals(1, hourlyWeatherList.size());
+        assertEquals(15, hourlyWeatherList.get(0).getTemperature());
+        verify(locationRepo, never()).findByCode(locationCode);
+        verify(hourlyWeatherRepo, never()).findRowsByLocationCode(anyString(), anyInt());
+    }
+
+    @Test
+    public void testGetJsonByLocationCodeServesCachedResponseOfStoredForecast() {
+        String locationCode = "NYC_USA";
+
+        Location location = Location.builder()
+                .code(locationCode)
+                .cityName("New York City")
+                .countryName("United States of America")
+                .build();
+
+        HourlyForecastStore store = new HourlyForecastStore(new HourlyWeatherProperties());
+        store.putIfAbsent(locationCode, location, List.of(
+                HourlyWeather.builder().id(new HourlyWeatherId(10, location)).temperature(15).status("Sunny").build()));
+
+        HourlyForecastStore.Forecast forecast = store.get(locationCode);
+        byte[] json = "{}".getBytes();
+
+        when(hourlyForecastStore.get(locationCode)).thenReturn(forecast);
+        when(hourlyForecastResponseCache.get(locationCode, forecast, 9)).thenReturn(json);
+
+        assertThat(hourlyWeatherService.getJsonByLocationCode(locationCode, 9)).isSameAs(json);
+        verify(hourlyWeatherRepo, never()).findRowsByLocationCode(anyString(), anyInt());
+    }
+
+    @Test
+    public void testGetETagDiffersForForecastsCollidingUnderPolynomialHash() {
+        String locationCode = "NYC_USA";
+
+        Location location = Location.builder()
+                .code(locationCode)
+                .cityName("New York City")
+                .countryName("United States of America")
+                .build();
+
+        // 31 * 10 + 40 == 31 * 11 + 9, so a 31-based fold gives both forecasts the same hash
+        HourlyWeather before = HourlyWeather.builder()
+                .id(new HourlyWeatherId(10, location))
+                .temperature(10)
+                .precipitation(40)
+                .status("Sunny")
+                .build();
+        HourlyWeather after = HourlyWeather.builder()
+                .id(new HourlyWeatherId(10, location))
+                .temperature(11)
+                .precipitation(9)
+                .status("Sunny")
+                .build();
+
+        when(hourlyWeatherRepo.findRowsByLocationCode(locationCode, -1)).thenReturn(List.of(row(before)));
+        when(hourlyForecastWriter.write(Map.of(locationCode, List.of(after)))).thenReturn(Map.of(locationCode,
+                new HourlyForecastUpdate(location, List.of(after), HourlyForecastChangesDTO.builder().updated(1).build())));
+
+        String eTag = hourlyWeatherService.getETag(locationCode, 9);
+
+        hourlyWeatherService.updateByLocationCode(locationCode, List.of(after));
+        when(hourlyWeatherRepo.findRowsByLocationCode(locationCode, -1)).thenReturn(List.of(row(after)));
+
+        assertThat(hourlyWeatherService.getETag(locationCode, 9)).isNotEqualTo(eTag);
+    }
+
+    @Test
+    public void testUnknownLocationCodeIsNotFoundAfterConditionalRequest() {
+        String locationCode = "ABC_XY";
+
+        // the ETag lookup of a conditional GET finds no rows for the code
+        assertThat(hourlyWeatherService.getETag(locationCode, 9)).isNull();
+
+        verify(hourlyForecastStore, never()).putIfAbsent(anyString(), any(), anyList());
+        assertThrows(LocationNotFoundException.class, () -> hourlyWeatherService.getJsonByLocationCode(locationCode, 9));
+    }
+
+    private static HourlyForecastRow row(HourlyWeather hourlyWeather) {
+        Location location = hourlyWeather.getId().getLocation();
 
+        return new HourlyForecastRow(hourlyWeather.getId().getHourOfDay(), hourlyWeather.getTemperature(),
+                hourlyWeather.getPrecipitation(), hourlyWeather.getStatus(), location.getCode(),
+                location.getCityName(), location.getRegionName(), location.getCountryName(),
+                location.getCountryCode());
     }
 }
@@ -3,10 +3,15 @@ package com.skyapi.weatherforecast.location.service;
 import com.skyapi.weatherforecast.base.BaseServiceTest;
 import com.skyapi.weatherforecast.common.Location;
 import com.skyapi.weatherforecast.exception.LocationNotFoundException;
+import com.skyapi.weatherforecast.hourly.service.HourlyWeatherService;
 import com.skyapi.weatherforecast.location.repository.LocationRepository;
+import com.skyapi.weatherforecast.realtime.service.RealtimeWeatherService;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 
@@ -21,6 +26,18 @@ public class LocationApiServiceTests extends BaseServiceTest {
     @Mock
     private LocationRepository locationRepository;
 
+    @Mock
+    private LocationCodeIndex locationCodeIndex;
+
+    @Mock
+    private GeolocationService geolocationService;
+
+    @Mock
+    private RealtimeWeatherService realtimeWeatherService;
+
+    @Mock
+    private HourlyWeatherService hourlyWeatherService;
+
 
     @Test
     public void shouldReturnLocationWhenNewLocation(){
@@ -47,6 +64,9 @@ public class LocationApiServiceTests extends BaseServiceTest {
         assertThat(savedLocation.getCountryCode()).isEqualTo("US");
         assertThat(savedLocation.getCountryName()).isEqualTo("United States of America");
         assertThat(savedLocation.isEnabled()).isEqualTo(true);
+
+        verify(locationCodeIndex, times(1)).put(location);
+        verify(geolocationService, times(1)).invalidateServedMisses();
     }
 
     @Test
@@ -197,5 +217,43 @@ public class LocationApiServiceTests extends BaseServiceTest {
 
         // Assert
         verify(locationRepository, times(1)).trashByCode(code);
+        verify(locationCodeIndex, times(1)).remove(location);
+        verify(realtimeWeatherService, times(1)).evict(code);
+        verify(realtimeWeatherService, times(1)).deleteHistory(code);
+        verify(hourlyWeatherService, times(1)).evict(code);
+    }
+
+    @Test
+    public void testUpdateChangesIndexAndCachesOnlyAfterCommit() {
+        Location location = Location.builder()
+                .code("NYC_USA")
+                .cityName("New York City")
+                .countryCode("US")
+                .countryName("United States of America")
+                .enabled(true)
+                .build();
+
+        when(locationRepository.findByCode("NYC_USA")).thenReturn(location);
+        when(locationRepository.save(location)).thenReturn(location);
+
+        TransactionSynchronizationManager.initSynchronization();
+
+        try {
+            service.update(location.toBuilder().cityName("New York").build());
+
+            verifyNoInteractions(locationCodeIndex, realtimeWeatherService, hourlyWeatherService);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        ArgumentCaptor<Location> removed = ArgumentCaptor.forClass(Location.class);
+
+        verify(locationCodeIndex, times(1)).remove(removed.capture());
+        verify(locationCodeIndex, times(1)).put(location);
+        verify(realtimeWeatherService, times(1)).evict("NYC_USA");
+        verify(hourlyWeatherService, times(1)).evict("NYC_USA");
+        assertThat(removed.getValue().getCityName()).isEqualTo("New York City");
     }
 }
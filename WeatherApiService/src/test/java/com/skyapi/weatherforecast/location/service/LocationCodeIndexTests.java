@@ -0,0 +1,118 @@
+package com.skyapi.weatherforecast.location.service;
+
+import com.skyapi.weatherforecast.base.BaseServiceTest;
+import com.skyapi.weatherforecast.base.TestFixtures;
+import com.skyapi.weatherforecast.common.Location;
+import com.skyapi.weatherforecast.location.config.LocationMatchingProperties;
+import com.skyapi.weatherforecast.location.dto.UnmatchedLocationsDTO;
+import com.skyapi.weatherforecast.location.repository.LocationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LocationCodeIndexTests extends BaseServiceTest {
+
+    @Mock
+    private LocationRepository locationRepo;
+
+    private LocationMatchingProperties properties;
+
+    private LocationCodeIndex locationCodeIndex;
+
+    private final Location newYork = TestFixtures.newYork();
+
+    @BeforeEach
+    void setup() {
+        properties = new LocationMatchingProperties();
+        properties.getCityAliases().put("Frankfurt am Main", "Frankfurt");
+
+        locationCodeIndex = new LocationCodeIndex(locationRepo, properties);
+    }
+
+    @Test
+    public void testFindCodeBuildsIndexOnce() {
+        when(locationRepo.findUntrashed()).thenReturn(List.of(newYork));
+
+        assertThat(locationCodeIndex.findCode("US", "New York City")).isEqualTo("NYC_USA");
+        assertThat(locationCodeIndex.findCode("US", "Boston")).isNull();
+
+        verify(locationRepo, times(1)).findUntrashed();
+    }
+
+    @Test
+    public void testPutAndRemoveKeepIndexInSync() {
+        when(locationRepo.findUntrashed()).thenReturn(List.of());
+        locationCodeIndex.init();
+
+        locationCodeIndex.put(newYork);
+        assertThat(locationCodeIndex.findCode("US", "New York City")).isEqualTo("NYC_USA");
+
+        Location renamed = newYork.toBuilder().cityName("New York").build();
+        locationCodeIndex.remove(newYork);
+        locationCodeIndex.put(renamed);
+
+        assertThat(locationCodeIndex.findCode("US", "New York City")).isNull();
+        assertThat(locationCodeIndex.findCode("US", "New York")).isEqualTo("NYC_USA");
+
+        locationCodeIndex.put(renamed.toBuilder().trashed(true).build());
+        assertThat(locationCodeIndex.findCode("US", "New York")).isNull();
+        assertThat(locationCodeIndex.size()).isZero();
+    }
+
+    @Test
+    public void testRebuildKeepsServingPreviousIndexUntilReplaced() {
+        Location boston = TestFixtures.location("BOS_USA", "Boston");
+
+        when(locationRepo.findUntrashed())
+                .thenReturn(List.of(newYork))
+                .thenAnswer(invocation -> {
+                    // a rebuild in progress does not empty the index
+                    assertThat(locationCodeIndex.findCode("US", "New York City")).isEqualTo("NYC_USA");
+                    return List.of(boston);
+                });
+
+        locationCodeIndex.init();
+        locationCodeIndex.rebuild();
+
+        assertThat(locationCodeIndex.findCode("US", "New York City")).isNull();
+        assertThat(locationCodeIndex.findCode("US", "Boston")).isEqualTo("BOS_USA");
+        assertThat(locationCodeIndex.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFindCodeIgnoresCaseAccentsAndAliases() {
+        when(locationRepo.findUntrashed()).thenReturn(List.of(
+                Location.builder().code("SAO_BR").countryCode("BR").cityName("Sao Paulo").build(),
+                Location.builder().code("FRA_DE").countryCode("DE").cityName("Frankfurt").build()));
+
+        assertThat(locationCodeIndex.findCode("BR", "São Paulo")).isEqualTo("SAO_BR");
+        assertThat(locationCodeIndex.findCode("br", "  SAO-PAULO ")).isEqualTo("SAO_BR");
+        assertThat(locationCodeIndex.findCode("DE", "Frankfurt am Main")).isEqualTo("FRA_DE");
+        assertThat(locationCodeIndex.findCode("DE", "Frankfurt (Oder)")).isNull();
+    }
+
+    @Test
+    public void testRecordUnmatchedCountsNamesUpToLimit() {
+        properties.setMaxUnmatchedNames(2);
+        locationCodeIndex = new LocationCodeIndex(locationRepo, properties);
+
+        locationCodeIndex.recordUnmatched("IN", "Delhi");
+        locationCodeIndex.recordUnmatched("IN", "Delhi");
+        locationCodeIndex.recordUnmatched("IN", "Mumbai");
+        locationCodeIndex.recordUnmatched("IN", "Chennai");
+
+        UnmatchedLocationsDTO unmatched = locationCodeIndex.getUnmatched();
+
+        assertThat(unmatched.getTotalUnmatched()).isEqualTo(4);
+        assertThat(unmatched.getDistinctNames()).isEqualTo(2);
+        assertThat(unmatched.getNames().get(0).getCityName()).isEqualTo("Delhi");
+        assertThat(unmatched.getNames().get(0).getCount()).isEqualTo(2);
+    }
+}
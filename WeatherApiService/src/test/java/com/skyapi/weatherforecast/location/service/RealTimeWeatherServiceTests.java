@@ -1,20 +1,38 @@
 package com.skyapi.weatherforecast.location.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.skyapi.weatherforecast.base.BaseServiceTest;
 import com.skyapi.weatherforecast.common.Location;
 import com.skyapi.weatherforecast.common.RealtimeWeather;
+import com.skyapi.weatherforecast.exception.BadRequestException;
 import com.skyapi.weatherforecast.exception.LocationNotFoundException;
 import com.skyapi.weatherforecast.location.repository.LocationRepository;
+import com.skyapi.weatherforecast.realtime.config.RealtimeWeatherProperties;
+import com.skyapi.weatherforecast.realtime.dto.RealtimeWeatherHistoryDTO;
 import com.skyapi.weatherforecast.realtime.repository.RealtimeWeatherRepository;
+import com.skyapi.weatherforecast.realtime.service.RealtimeWeatherCache;
+import com.skyapi.weatherforecast.realtime.service.RealtimeWeatherHistory;
+import com.skyapi.weatherforecast.realtime.service.RealtimeWeatherPublisher;
 import com.skyapi.weatherforecast.realtime.service.RealtimeWeatherService;
+import com.skyapi.weatherforecast.realtime.service.RealtimeWeatherWriteBehind;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class RealTimeWeatherServiceTests extends BaseServiceTest {
@@ -25,6 +43,24 @@ public class RealTimeWeatherServiceTests extends BaseServiceTest {
     @Mock
     private LocationRepository locationRepo;
 
+    @Mock
+    private LocationCodeIndex locationCodeIndex;
+
+    @Mock
+    private RealtimeWeatherCache realtimeWeatherCache;
+
+    @Mock
+    private RealtimeWeatherPublisher realtimeWeatherPublisher;
+
+    @Mock
+    private RealtimeWeatherWriteBehind realtimeWeatherWriteBehind;
+
+    @Mock
+    private RealtimeWeatherProperties properties;
+
+    @Mock
+    private RealtimeWeatherHistory realtimeWeatherHistory;
+
     @InjectMocks
     private RealtimeWeatherService realtimeWeatherService;
 
@@ -56,7 +92,9 @@ public class RealTimeWeatherServiceTests extends BaseServiceTest {
                 .build();
 
         // when
-        when(realtimeWeatherRepo.findByCountryCodeAndCity(countryCode, cityName)).thenReturn(realtimeWeather);
+        when(locationCodeIndex.findCode(countryCode, cityName)).thenReturn(locationCode);
+        when(realtimeWeatherRepo.findByLocationCode(locationCode)).thenReturn(realtimeWeather);
+        when(realtimeWeatherCache.putIfAbsent(realtimeWeather)).thenReturn(new RealtimeWeatherCache.Entry(realtimeWeather, new byte[0]));
 
         RealtimeWeather realtimeWeatherInfo = realtimeWeatherService.getByLocation(location);
 
@@ -93,6 +131,7 @@ public class RealTimeWeatherServiceTests extends BaseServiceTest {
 
         // when
         when(realtimeWeatherRepo.findByLocationCode(locationCode)).thenReturn(realtimeWeather);
+        when(realtimeWeatherCache.putIfAbsent(realtimeWeather)).thenReturn(new RealtimeWeatherCache.Entry(realtimeWeather, new byte[0]));
 
         RealtimeWeather realtimeWeatherInfo = realtimeWeatherService.getByLocationCode(locationCode);
 
@@ -135,6 +174,7 @@ public class RealTimeWeatherServiceTests extends BaseServiceTest {
 
         when(locationRepo.findByCode(locationCode)).thenReturn(location);
         when(realtimeWeatherRepo.save(realtimeWeather)).thenReturn(realtimeWeather);
+        when(realtimeWeatherCache.put(realtimeWeather)).thenReturn(new RealtimeWeatherCache.Entry(realtimeWeather, new byte[0]));
 
         RealtimeWeather updatedRealtimeWeatherInfo = location.getRealtimeWeather();
 
@@ -147,5 +187,135 @@ public class RealTimeWeatherServiceTests extends BaseServiceTest {
         assertEquals(updatedRealtimeWeather.getTemperature(),updatedRealtimeWeatherInfo.getTemperature());
         assertEquals(updatedRealtimeWeather.getWindSpeed(),updatedRealtimeWeatherInfo.getWindSpeed());
         assertEquals(location, updatedRealtimeWeather.getLocation());
+        verify(realtimeWeatherCache, times(1)).put(updatedRealtimeWeather);
+        verify(realtimeWeatherPublisher, times(1)).publish(any(RealtimeWeatherPublisher.Event.class));
+    }
+
+    @Test
+    public void testGetByLocationCodeShouldNotQueryRepositoryWhenCached() throws LocationNotFoundException {
+        String locationCode = "NYC_USA";
+
+        RealtimeWeather realtimeWeather = RealtimeWeather.builder()
+                .locationCode(locationCode)
+                .temperature(12)
+                .status("Cloudy")
+                .build();
+
+        byte[] json = "{\"temperature\":12}".getBytes(StandardCharsets.UTF_8);
+
+        when(realtimeWeatherCache.get(locationCode)).thenReturn(new RealtimeWeatherCache.Entry(realtimeWeather, json));
+
+        assertSame(realtimeWeather, realtimeWeatherService.getByLocationCode(locationCode));
+        assertSame(json, realtimeWeatherService.getJsonByLocationCode(locationCode));
+
+        verify(realtimeWeatherRepo, never()).findByLocationCode(locationCode);
+    }
+
+    @Test
+    public void testUpdateWithWriteBehindDefersSave() throws LocationNotFoundException {
+        String locationCode = "NYC_USA";
+
+        Location location = Location.builder().code(locationCode).cityName("New York City").build();
+
+        RealtimeWeather realtimeWeather = RealtimeWeather.builder()
+                .temperature(12)
+                .status("Cloudy")
+                .build();
+
+        RealtimeWeatherCache.Entry entry = new RealtimeWeatherCache.Entry(realtimeWeather, new byte[0]);
+
+        when(realtimeWeatherWriteBehind.isEnabled()).thenReturn(true);
+        when(locationRepo.findByCode(locationCode)).thenReturn(location);
+        when(realtimeWeatherCache.put(realtimeWeather)).thenReturn(entry);
+
+        RealtimeWeather updatedRealtimeWeather = realtimeWeatherService.update(locationCode, realtimeWeather);
+
+        assertEquals(location, updatedRealtimeWeather.getLocation());
+        assertNotNull(updatedRealtimeWeather.getLastUpdated());
+        verify(realtimeWeatherWriteBehind, times(1)).put(entry);
+        verify(realtimeWeatherRepo, never()).save(any());
+    }
+
+    @Test
+    public void testUpdateWithNativeUpsertUsesCachedLocation() throws LocationNotFoundException {
+        String locationCode = "NYC_USA";
+
+        Location location = Location.builder().code(locationCode).cityName("New York City").build();
+
+        RealtimeWeather cached = RealtimeWeather.builder().temperature(10).status("Sunny").build();
+        cached.setLocation(location);
+
+        RealtimeWeather realtimeWeather = RealtimeWeather.builder()
+                .temperature(12)
+                .humidity(32)
+                .precipitation(88)
+                .windSpeed(5)
+                .status("Cloudy")
+                .build();
+
+        when(properties.isNativeUpsert()).thenReturn(true);
+        when(realtimeWeatherRepo.upsert(realtimeWeather)).thenReturn(1);
+        when(realtimeWeatherCache.get(locationCode)).thenReturn(new RealtimeWeatherCache.Entry(cached, new byte[0]));
+        when(realtimeWeatherCache.put(realtimeWeather)).thenReturn(new RealtimeWeatherCache.Entry(realtimeWeather, new byte[0]));
+
+        RealtimeWeather updatedRealtimeWeather = realtimeWeatherService.update(locationCode, realtimeWeather);
+
+        assertSame(location, updatedRealtimeWeather.getLocation());
+        assertNotNull(updatedRealtimeWeather.getLastUpdated());
+        verify(locationRepo, never()).findByCode(locationCode);
+        verify(realtimeWeatherRepo, never()).save(any());
+    }
+
+    @Test
+    public void testUpdateWithNativeUpsertThrowsWhenNoRowWritten() {
+        when(properties.isNativeUpsert()).thenReturn(true);
+
+        RealtimeWeather realtimeWeather = RealtimeWeather.builder().temperature(12).status("Cloudy").build();
+
+        when(realtimeWeatherRepo.upsert(realtimeWeather)).thenReturn(0);
+
+        assertThrows(LocationNotFoundException.class, () -> realtimeWeatherService.update("ABC_XY", realtimeWeather));
+        verify(realtimeWeatherCache, never()).put(any());
+    }
+
+    @Test
+    public void testGetJsonByLocationCodesQueriesOnlyUncachedCodes() throws Exception {
+        RealtimeWeather newYork = RealtimeWeather.builder().locationCode("NYC_USA").temperature(12).build();
+        RealtimeWeather delhi = RealtimeWeather.builder().locationCode("DELHI_IN").temperature(30).build();
+
+        when(properties.getMaxReadCodes()).thenReturn(10);
+        when(realtimeWeatherCache.get("NYC_USA")).thenReturn(new RealtimeWeatherCache.Entry(newYork,
+                "{\"temperature\":12}".getBytes(StandardCharsets.UTF_8)));
+        when(realtimeWeatherRepo.findByLocationCodeIn(List.of("DELHI_IN", "ABC_XY"))).thenReturn(List.of(delhi));
+        when(realtimeWeatherCache.putIfAbsent(delhi)).thenReturn(new RealtimeWeatherCache.Entry(delhi,
+                "{\"temperature\":30}".getBytes(StandardCharsets.UTF_8)));
+
+        byte[] json = realtimeWeatherService.getJsonByLocationCodes(List.of("NYC_USA", "DELHI_IN", "ABC_XY", "NYC_USA"));
+
+        JsonNode result = new ObjectMapper().readTree(json);
+
+        assertEquals(12, result.at("/locations/NYC_USA/temperature").asInt());
+        assertEquals(30, result.at("/locations/DELHI_IN/temperature").asInt());
+        assertEquals(1, result.get("not_found").size());
+        assertEquals("ABC_XY", result.get("not_found").get(0).asText());
+    }
+
+    @Test
+    public void testGetJsonByLocationCodesRejectsTooManyCodes() {
+        when(properties.getMaxReadCodes()).thenReturn(2);
+
+        assertThrows(BadRequestException.class,
+                () -> realtimeWeatherService.getJsonByLocationCodes(List.of("A", "B", "C")));
+        verify(realtimeWeatherRepo, never()).findByLocationCodeIn(any());
+    }
+
+    @Test
+    public void testGetHistoryOfUnknownLocationThrows() {
+        when(realtimeWeatherHistory.get(eq("ABC_XY"), any())).thenReturn(RealtimeWeatherHistoryDTO.builder()
+                .locationCode("ABC_XY")
+                .samples(List.of())
+                .build());
+
+        assertThrows(LocationNotFoundException.class, () -> realtimeWeatherService.getHistory("ABC_XY"));
     }
 }
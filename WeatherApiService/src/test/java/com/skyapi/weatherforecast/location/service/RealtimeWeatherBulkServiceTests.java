@@ -0,0 +1,179 @@
+package com.skyapi.weatherforecast.location.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skyapi.weatherforecast.base.BaseServiceTest;
+import com.skyapi.weatherforecast.exception.BadRequestException;
+import com.skyapi.weatherforecast.realtime.config.RealtimeWeatherProperties;
+import com.skyapi.weatherforecast.realtime.dto.RealtimeWeatherBulkItemDTO;
+import com.skyapi.weatherforecast.realtime.dto.RealtimeWeatherBulkResultDTO;
+import com.skyapi.weatherforecast.realtime.dto.RealtimeWeatherIngestResultDTO;
+import com.skyapi.weatherforecast.realtime.service.RealtimeWeatherBulkService;
+import com.skyapi.weatherforecast.realtime.service.RealtimeWeatherBulkWriter;
+import com.skyapi.weatherforecast.realtime.service.RealtimeWeatherService;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RealtimeWeatherBulkServiceTests extends BaseServiceTest {
+
+    @Mock
+    private RealtimeWeatherBulkWriter bulkWriter;
+
+    @Mock
+    private RealtimeWeatherService realtimeWeatherService;
+
+    private RealtimeWeatherBulkService bulkService;
+
+    @BeforeEach
+    void setup() {
+        RealtimeWeatherProperties properties = new RealtimeWeatherProperties();
+        properties.getBulk().setChunkSize(2);
+        properties.getBulk().setMaxItems(5);
+
+        bulkService = new RealtimeWeatherBulkService(bulkWriter, realtimeWeatherService,
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), properties);
+    }
+
+    @Test
+    public void testUpdateReportsResultPerItemInRequestOrder() throws BadRequestException {
+        RealtimeWeatherBulkItemDTO newYork = item("NYC_USA", 12);
+        RealtimeWeatherBulkItemDTO delhi = item("DELHI_IN", 30);
+        RealtimeWeatherBulkItemDTO invalid = item("MADRID_ES", 120);
+        RealtimeWeatherBulkItemDTO unknown = item("ABC_XY", 10);
+        RealtimeWeatherBulkItemDTO duplicate = item("NYC_USA", 13);
+
+        when(bulkWriter.write(any(), any()))
+                .thenReturn(Map.of("NYC_USA", RealtimeWeatherBulkResultDTO.STATUS_UPDATED,
+                        "DELHI_IN", RealtimeWeatherBulkResultDTO.STATUS_CREATED))
+                .thenReturn(Map.of());
+
+        RealtimeWeatherBulkResultDTO result = bulkService.update(List.of(newYork, delhi, invalid, unknown, duplicate));
+
+        assertThat(result.getTotal()).isEqualTo(5);
+        assertThat(result.getUpdated()).isEqualTo(1);
+        assertThat(result.getCreated()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(3);
+
+        assertThat(result.getResults()).extracting(RealtimeWeatherBulkResultDTO.ItemResult::getStatus)
+                .containsExactly("UPDATED", "CREATED", "FAILED", "FAILED", "FAILED");
+        assertThat(result.getResults().get(2).getError()).contains("Temperature");
+        assertThat(result.getResults().get(3).getError()).contains("No location found");
+        assertThat(result.getResults().get(4).getError()).contains("Duplicate");
+
+        // three valid items in chunks of two
+        verify(bulkWriter, times(2)).write(any(), any());
+        verify(realtimeWeatherService, times(1)).refresh(eq(newYork), any());
+        verify(realtimeWeatherService, times(1)).refresh(eq(delhi), any());
+        verify(realtimeWeatherService, never()).refresh(eq(unknown), any());
+    }
+
+    @Test
+    public void testUpdateFailsOnlyTheItemsOfAChunkThatCannotBeWritten() throws BadRequestException {
+        RealtimeWeatherBulkItemDTO newYork = item("NYC_USA", 12);
+        RealtimeWeatherBulkItemDTO delhi = item("DELHI_IN", 30);
+        RealtimeWeatherBulkItemDTO madrid = item("MADRID_ES", 20);
+
+        when(bulkWriter.write(any(), any()))
+                .thenThrow(new QueryTimeoutException("Query timed out"))
+                .thenReturn(Map.of("MADRID_ES", RealtimeWeatherBulkResultDTO.STATUS_UPDATED));
+
+        RealtimeWeatherBulkResultDTO result = bulkService.update(List.of(newYork, delhi, madrid));
+
+        assertThat(result.getUpdated()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(2);
+        assertThat(result.getResults()).extracting(RealtimeWeatherBulkResultDTO.ItemResult::getStatus)
+                .containsExactly("FAILED", "FAILED", "UPDATED");
+        assertThat(result.getResults().get(0).getError()).contains("Failed to write");
+
+        verify(realtimeWeatherService, never()).refresh(eq(newYork), any());
+        verify(realtimeWeatherService, times(1)).refresh(eq(madrid), any());
+    }
+
+    @Test
+    public void testUpdateRejectsTooManyItems() {
+        List<RealtimeWeatherBulkItemDTO> items = List.of(item("A", 1), item("B", 1), item("C", 1),
+                item("D", 1), item("E", 1), item("F", 1));
+
+        assertThrows(BadRequestException.class, () -> bulkService.update(items));
+        verify(bulkWriter, never()).write(any(), any());
+    }
+
+    @Test
+    public void testIngestWritesFixedSizeChunksAndReportsLineErrors() throws IOException {
+        String body = """
+                {"location_code":"NYC_USA","temperature":12,"humidity":40,"precipitation":10,"wind_speed":5,"status":"Sunny"}
+                {"location_code":"DELHI_IN","temperature":99,"humidity":40,"precipitation":10,"wind_speed":5,"status":"Sunny"}
+                not-json
+                {"location_code":"NYC_USA","temperature":13,"humidity":40,"precipitation":10,"wind_speed":5,"status":"Sunny"}
+                {"location_code":"ABC_XY","temperature":10,"humidity":40,"precipitation":10,"wind_speed":5,"status":"Sunny"}
+                {"location_code":"MADRID_ES","temperature":20,"humidity":40,"precipitation":10,"wind_speed":5,"status":"Sunny"}
+                """;
+
+        when(bulkWriter.write(any(), any()))
+                .thenReturn(Map.of("NYC_USA", RealtimeWeatherBulkResultDTO.STATUS_UPDATED))
+                .thenReturn(Map.of("MADRID_ES", RealtimeWeatherBulkResultDTO.STATUS_CREATED));
+
+        RealtimeWeatherIngestResultDTO result = bulkService.ingest(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.getLines()).isEqualTo(6);
+        assertThat(result.getUpdated()).isEqualTo(1);
+        assertThat(result.getCreated()).isEqualTo(1);
+        assertThat(result.getSuperseded()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(3);
+        assertThat(result.getErrors()).extracting(RealtimeWeatherIngestResultDTO.LineError::getLine)
+                .containsExactly(2L, 3L, 5L);
+
+        // the second NYC_USA record replaced the first one before the chunk of two was full
+        verify(bulkWriter, times(2)).write(any(), any());
+    }
+
+    @Test
+    public void testIngestReportsLinesOfAChunkThatCannotBeWritten() throws IOException {
+        String body = """
+                {"location_code":"NYC_USA","temperature":12,"humidity":40,"precipitation":10,"wind_speed":5,"status":"Sunny"}
+                {"location_code":"DELHI_IN","temperature":30,"humidity":40,"precipitation":10,"wind_speed":5,"status":"Sunny"}
+                {"location_code":"MADRID_ES","temperature":20,"humidity":40,"precipitation":10,"wind_speed":5,"status":"Sunny"}
+                """;
+
+        when(bulkWriter.write(any(), any()))
+                .thenThrow(new QueryTimeoutException("Query timed out"))
+                .thenReturn(Map.of("MADRID_ES", RealtimeWeatherBulkResultDTO.STATUS_CREATED));
+
+        RealtimeWeatherIngestResultDTO result = bulkService.ingest(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.getCreated()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(2);
+        assertThat(result.getErrors()).extracting(RealtimeWeatherIngestResultDTO.LineError::getLine)
+                .containsExactly(1L, 2L);
+    }
+
+    private RealtimeWeatherBulkItemDTO item(String locationCode, int temperature) {
+        return RealtimeWeatherBulkItemDTO.builder()
+                .locationCode(locationCode)
+                .temperature(temperature)
+                .humidity(40)
+                .precipitation(10)
+                .windSpeed(5)
+                .status("Sunny")
+                .build();
+    }
+}
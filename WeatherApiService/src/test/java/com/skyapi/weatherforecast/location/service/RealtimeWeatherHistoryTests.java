@@ -0,0 +1,67 @@
+package com.skyapi.weatherforecast.location.service;
+
+import com.skyapi.weatherforecast.realtime.config.RealtimeWeatherProperties;
+import com.skyapi.weatherforecast.realtime.dto.RealtimeWeatherHistoryDTO;
+import com.skyapi.weatherforecast.realtime.service.RealtimeWeatherHistory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RealtimeWeatherHistoryTests {
+
+    private static final LocalDateTime START = LocalDateTime.of(2023, 3, 2, 15, 0);
+
+    private RealtimeWeatherHistory history;
+
+    @BeforeEach
+    void setup() {
+        RealtimeWeatherProperties properties = new RealtimeWeatherProperties();
+        properties.getHistory().setRetention(Duration.ofMinutes(30));
+        properties.getHistory().setResolution(Duration.ofMinutes(10));
+
+        history = new RealtimeWeatherHistory(properties);
+    }
+
+    @Test
+    public void testUpdatesWithinResolutionReplaceNewestSample() {
+        history.append("NYC_USA", START, 10, 20, 30, 5);
+        history.append("NYC_USA", START.plusMinutes(4), 11, 21, 31, 6);
+        history.append("NYC_USA", START.plusMinutes(12), -3, 40, 0, 180);
+
+        List<RealtimeWeatherHistoryDTO.Sample> samples = samples(START.plusMinutes(15));
+
+        assertThat(samples).extracting(RealtimeWeatherHistoryDTO.Sample::getTemperature).containsExactly(11, -3);
+        assertThat(samples.get(0).getLastUpdated()).isEqualTo(START.plusMinutes(4));
+        assertThat(samples.get(1).getWindSpeed()).isEqualTo(180);
+    }
+
+    @Test
+    public void testRingKeepsOnlyNewestSamples() {
+        for (int i = 0; i < 5; i++) {
+            history.append("NYC_USA", START.plusMinutes(10L * i), i, 0, 0, 0);
+        }
+
+        history.append("NYC_USA", START, 99, 0, 0, 0);
+
+        assertThat(samples(START.plusMinutes(40))).extracting(RealtimeWeatherHistoryDTO.Sample::getTemperature)
+                .containsExactly(2, 3, 4);
+    }
+
+    @Test
+    public void testSamplesOlderThanRetentionAreNotReturned() {
+        history.append("NYC_USA", START, 10, 20, 30, 5);
+
+        assertThat(samples(START.plusMinutes(30))).hasSize(1);
+        assertThat(samples(START.plusHours(2))).isEmpty();
+        assertThat(history.get("ABC_XY", START).getSamples()).isEmpty();
+    }
+
+    private List<RealtimeWeatherHistoryDTO.Sample> samples(LocalDateTime now) {
+        return history.get("NYC_USA", now).getSamples();
+    }
+}
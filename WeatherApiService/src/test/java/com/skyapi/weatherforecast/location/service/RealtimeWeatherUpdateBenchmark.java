@@ -0,0 +1,93 @@
+package com.skyapi.weatherforecast.location.service;
+
+import com.skyapi.weatherforecast.WeatherApiServiceApplication;
+import com.skyapi.weatherforecast.base.TestFixtures;
+import com.skyapi.weatherforecast.common.RealtimeWeather;
+import com.skyapi.weatherforecast.location.repository.LocationRepository;
+import com.skyapi.weatherforecast.realtime.config.RealtimeWeatherProperties;
+import com.skyapi.weatherforecast.realtime.service.RealtimeWeatherService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link RealtimeWeatherService#update} through the entity save path with the native upsert.
+ * <p>
+ * Runs against the in-memory H2 database of the integration profile; pass {@code -Dspring.profiles.active=...}
+ * through {@code jvmArgsAppend} to benchmark against MySQL instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RealtimeWeatherUpdateBenchmark {
+
+    private static final int LOCATION_COUNT = 256;
+
+    @Param({"false", "true"})
+    private boolean nativeUpsert;
+
+    private ConfigurableApplicationContext context;
+    private RealtimeWeatherService realtimeWeatherService;
+
+    private String[] locationCodes;
+    private int next;
+
+    @Setup
+    public void setup() {
+        context = new SpringApplicationBuilder(WeatherApiServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles(System.getProperty("spring.profiles.active", "integration"))
+                .properties("spring.jpa.show-sql=false")
+                .run();
+
+        context.getBean(RealtimeWeatherProperties.class).setNativeUpsert(nativeUpsert);
+        realtimeWeatherService = context.getBean(RealtimeWeatherService.class);
+
+        LocationRepository locationRepo = context.getBean(LocationRepository.class);
+        locationCodes = new String[LOCATION_COUNT];
+
+        for (int i = 0; i < LOCATION_COUNT; i++) {
+            locationCodes[i] = "BENCH_" + i;
+
+            locationRepo.save(TestFixtures.location(locationCodes[i], "City " + i));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public RealtimeWeather update() {
+        int n = next++;
+
+        RealtimeWeather realtimeWeather = RealtimeWeather.builder()
+                .temperature(n % 50)
+                .humidity(n % 100)
+                .precipitation(n % 100)
+                .windSpeed(n % 200)
+                .status("Cloudy")
+                .build();
+
+        return realtimeWeatherService.update(locationCodes[n & (LOCATION_COUNT - 1)], realtimeWeather);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(RealtimeWeatherUpdateBenchmark.class.getSimpleName())
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,125 @@
+package com.skyapi.weatherforecast.location.service;
+
+import com.skyapi.weatherforecast.base.BaseServiceTest;
+import com.skyapi.weatherforecast.base.TestFixtures;
+import com.skyapi.weatherforecast.common.RealtimeWeather;
+import com.skyapi.weatherforecast.realtime.config.RealtimeWeatherProperties;
+import com.skyapi.weatherforecast.realtime.dto.RealtimeWeatherBulkResultDTO;
+import com.skyapi.weatherforecast.realtime.dto.RealtimeWeatherWriteBehindStatsDTO;
+import com.skyapi.weatherforecast.realtime.service.RealtimeWeatherBulkWriter;
+import com.skyapi.weatherforecast.realtime.service.RealtimeWeatherCache;
+import com.skyapi.weatherforecast.realtime.service.RealtimeWeatherWriteBehind;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RealtimeWeatherWriteBehindTests extends BaseServiceTest {
+
+    @Mock
+    private RealtimeWeatherBulkWriter bulkWriter;
+
+    private RealtimeWeatherWriteBehind writeBehind;
+
+    @BeforeEach
+    void setup() {
+        RealtimeWeatherProperties properties = new RealtimeWeatherProperties();
+        properties.getWriteBehind().setEnabled(true);
+        properties.getWriteBehind().setBatchSize(2);
+
+        writeBehind = new RealtimeWeatherWriteBehind(bulkWriter, properties);
+    }
+
+    @Test
+    public void testFlushWritesOnlyLatestUpdatePerLocation() {
+        RealtimeWeatherCache.Entry first = entry("NYC_USA", 10, LocalDateTime.of(2023, 3, 2, 15, 30));
+        RealtimeWeatherCache.Entry latest = entry("NYC_USA", 12, LocalDateTime.of(2023, 3, 2, 15, 31));
+
+        writeBehind.put(first);
+        writeBehind.put(latest);
+
+        assertThat(writeBehind.get("NYC_USA")).isSameAs(latest);
+
+        when(bulkWriter.writeAll(List.of(latest.realtimeWeather())))
+                .thenReturn(Map.of("NYC_USA", RealtimeWeatherBulkResultDTO.STATUS_UPDATED));
+
+        writeBehind.flush();
+
+        assertThat(writeBehind.get("NYC_USA")).isNull();
+
+        RealtimeWeatherWriteBehindStatsDTO stats = writeBehind.stats();
+        assertThat(stats.getAccepted()).isEqualTo(2);
+        assertThat(stats.getCoalesced()).isEqualTo(1);
+        assertThat(stats.getWritten()).isEqualTo(1);
+        assertThat(stats.getPending()).isZero();
+    }
+
+    @Test
+    public void testFailedFlushKeepsSlotsForRetry() {
+        RealtimeWeatherCache.Entry entry = entry("NYC_USA", 12, LocalDateTime.of(2023, 3, 2, 15, 30));
+        writeBehind.put(entry);
+
+        when(bulkWriter.writeAll(any())).thenThrow(new IllegalStateException("database unavailable"));
+
+        writeBehind.flush();
+
+        assertThat(writeBehind.get("NYC_USA")).isSameAs(entry);
+        assertThat(writeBehind.stats().getFailedFlushes()).isEqualTo(1);
+    }
+
+    @Test
+    public void testDiscardKeepsUpdatesNewerThanDirectWrite() {
+        LocalDateTime writtenAt = LocalDateTime.of(2023, 3, 2, 15, 30);
+
+        writeBehind.put(entry("NYC_USA", 12, writtenAt.minusSeconds(1)));
+        writeBehind.put(entry("DELHI_IN", 30, writtenAt.plusSeconds(1)));
+
+        writeBehind.discard("NYC_USA", writtenAt);
+        writeBehind.discard("DELHI_IN", writtenAt);
+
+        assertThat(writeBehind.get("NYC_USA")).isNull();
+        assertThat(writeBehind.get("DELHI_IN")).isNotNull();
+    }
+
+    @Test
+    public void testFlushWithoutPendingUpdatesDoesNotWrite() {
+        writeBehind.flush();
+
+        verify(bulkWriter, never()).writeAll(any());
+        assertThat(writeBehind.stats().getFlushes()).isZero();
+    }
+
+    @Test
+    public void testFlushWritesInBatches() {
+        LocalDateTime lastUpdated = LocalDateTime.of(2023, 3, 2, 15, 30);
+
+        writeBehind.put(entry("A", 1, lastUpdated));
+        writeBehind.put(entry("B", 2, lastUpdated));
+        writeBehind.put(entry("C", 3, lastUpdated));
+
+        when(bulkWriter.writeAll(any())).thenReturn(Map.of());
+
+        writeBehind.flush();
+
+        verify(bulkWriter, times(2)).writeAll(any());
+        assertThat(writeBehind.stats().getDropped()).isEqualTo(3);
+        assertThat(writeBehind.stats().getPending()).isZero();
+    }
+
+    private static RealtimeWeatherCache.Entry entry(String locationCode, int temperature, LocalDateTime lastUpdated) {
+        RealtimeWeather realtimeWeather = TestFixtures.realtimeWeather(locationCode, temperature);
+        realtimeWeather.setLastUpdated(lastUpdated);
+
+        return new RealtimeWeatherCache.Entry(realtimeWeather, new byte[0]);
+    }
+}
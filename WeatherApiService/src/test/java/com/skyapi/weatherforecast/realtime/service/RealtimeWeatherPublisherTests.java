@@ -0,0 +1,205 @@
+package com.skyapi.weatherforecast.realtime.service;
+
+import com.skyapi.weatherforecast.exception.BadRequestException;
+import com.skyapi.weatherforecast.realtime.config.RealtimeWeatherProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RealtimeWeatherPublisherTests {
+
+    private final ManualExecutor dispatcher = new ManualExecutor();
+
+    private RealtimeWeatherPublisher publisher;
+
+    @BeforeEach
+    void setup() {
+        RealtimeWeatherProperties properties = new RealtimeWeatherProperties();
+        properties.getEvents().setQueueCapacity(2);
+        properties.getEvents().setMaxCodes(2);
+
+        publisher = new RealtimeWeatherPublisher(properties, dispatcher);
+    }
+
+    @Test
+    public void testPublishDeliversNewerEventsToSubscribersOfTheLocation() throws BadRequestException {
+        publisher.subscribe(List.of("NYC_USA"), code -> event(code, 1));
+        publisher.subscribe(List.of("DELHI_IN"), code -> null);
+
+        publisher.publish(event("NYC_USA", 2));
+        // older than what the subscriber already has
+        publisher.publish(event("NYC_USA", 1));
+
+        dispatcher.runAll();
+
+        assertThat(publisher.stats().getSubscribers()).isEqualTo(2);
+        assertThat(publisher.stats().getPublished()).isEqualTo(2);
+        assertThat(publisher.stats().getDelivered()).isEqualTo(2);
+        assertThat(publisher.hasSubscribers("MADRID_ES")).isFalse();
+    }
+
+    @Test
+    public void testSlowSubscriberIsEvictedWhenItsQueueIsFull() throws BadRequestException {
+        publisher.subscribe(List.of("NYC_USA"), code -> null);
+        publisher.subscribe(List.of("NYC_USA"), code -> null);
+
+        publisher.publish(event("NYC_USA", 1));
+        publisher.publish(event("NYC_USA", 2));
+
+        // the second subscriber keeps up, the first one never gets a dispatcher thread
+        dispatcher.runLast();
+
+        publisher.publish(event("NYC_USA", 3));
+
+        assertThat(publisher.stats().getEvicted()).isEqualTo(1);
+        assertThat(publisher.stats().getSubscribers()).isEqualTo(1);
+        assertThat(publisher.hasSubscribers("NYC_USA")).isTrue();
+    }
+
+    @Test
+    public void testSubscriberStuckInWriteIsDisconnectedWithoutStallingOthers() throws Exception {
+        RealtimeWeatherProperties properties = new RealtimeWeatherProperties();
+        properties.getEvents().setDispatcherThreads(1);
+        properties.getEvents().setWriteTimeout(Duration.ofMillis(50));
+
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch delivered = new CountDownLatch(1);
+
+        Queue<SseEmitter> emitters = new ArrayDeque<>(List.of(
+                new TestEmitter(() -> {
+                    writing.countDown();
+                    release.await();
+                }),
+                new TestEmitter(delivered::countDown)));
+
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(1);
+        RealtimeWeatherPublisher publisher = new RealtimeWeatherPublisher(properties, pool, emitters::poll);
+
+        try {
+            // the client of the first subscription stops reading and its write takes the only thread
+            publisher.subscribe(List.of("NYC_USA"), code -> null);
+            publisher.publish(event("NYC_USA", 1));
+            assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+            publisher.subscribe(List.of("NYC_USA"), code -> null);
+            publisher.publish(event("NYC_USA", 2));
+            assertThat(delivered.await(100, TimeUnit.MILLISECONDS)).isFalse();
+
+            publisher.closeStalledSubscribers();
+
+            assertThat(delivered.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(publisher.stats().getTimedOut()).isEqualTo(1);
+            assertThat(publisher.stats().getSubscribers()).isEqualTo(1);
+
+            // once the stuck write returns, the pool shrinks back
+            release.countDown();
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (pool.getCorePoolSize() != 1 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertThat(pool.getCorePoolSize()).isEqualTo(1);
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSubscribeRejectsTooManyCodes() {
+        assertThrows(BadRequestException.class,
+                () -> publisher.subscribe(List.of("A", "B", "C"), code -> null));
+        assertThrows(BadRequestException.class,
+                () -> publisher.subscribe(List.of(" "), code -> null));
+    }
+
+    private RealtimeWeatherPublisher.Event event(String locationCode, long version) {
+        return new RealtimeWeatherPublisher.Event(locationCode, version, "\"" + locationCode + "-" + version + "\"",
+                "{}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private interface Write {
+
+        void run() throws InterruptedException;
+    }
+
+    private static class TestEmitter extends SseEmitter {
+
+        private final Write write;
+
+        TestEmitter(Write write) {
+            this.write = write;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            try {
+                write.run();
+            } catch (InterruptedException ex) {
+                throw new IOException(ex);
+            }
+        }
+    }
+
+    private static class ManualExecutor extends AbstractExecutorService {
+
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.remove(0).run();
+            }
+        }
+
+        void runLast() {
+            tasks.remove(tasks.size() - 1).run();
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return tasks;
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}